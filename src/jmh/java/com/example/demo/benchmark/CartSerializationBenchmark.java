@@ -0,0 +1,91 @@
+package com.example.demo.benchmark;
+
+
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.responses.*;
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Cost of writing a cart response: the cart entity graph the cart endpoints used to return, with the user and one
+ * full copy of an item, description included, per unit in the cart, against the {@link CartResponse} records they
+ * return now. The old graph is rebuilt as {@link LegacyCart}, since the {@link Cart} entity no longer holds a list of
+ * units. The payload size of both is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int lines;
+
+    @Param({"1", "20"})
+    private int quantity;
+
+    private final ObjectWriter writer = new ObjectMapper().writer();
+
+    private Cart cart;
+    private LegacyCart legacyCart;
+
+    @Setup
+    public void setUp()
+            throws JsonProcessingException {
+        User user = new User().setId(1)
+                              .setUsername("benchmarkUser");
+        cart = new Cart();
+        cart.setId(1L);
+        cart.setVersion(1L);
+        cart.setUser(user);
+        user.setCart(cart);
+        List<LegacyItem> units = new ArrayList<>(lines * quantity);
+        for (int i = 0; i < lines; i++) {
+            Item item = new Item();
+            item.setId((long) i);
+            item.setName("Item " + i);
+            item.setDescription("A widget that is described at length. ".repeat(12));
+            item.setPrice(Money.ofMinor(199 + i));
+            cart.addItem(item, quantity);
+            LegacyItem unit = new LegacyItem(item.getId(), item.getName(), item.getPrice()
+                                                                              .toBigDecimal(),
+                    item.getDescription());
+            for (int j = 0; j < quantity; j++) {
+                units.add(unit);
+            }
+        }
+        legacyCart = new LegacyCart(cart.getId(), units, new LegacyUser(user.getId(), user.getUsername()),
+                cart.getTotal()
+                    .toBigDecimal());
+        System.out.printf("%nPayload bytes: entity %d, response %d%n", writer.writeValueAsBytes(legacyCart).length,
+                writer.writeValueAsBytes(CartResponse.from(cart)).length);
+    }
+
+    @Benchmark
+    public byte[] entity()
+            throws JsonProcessingException {
+        return writer.writeValueAsBytes(legacyCart);
+    }
+
+    @Benchmark
+    public byte[] response()
+            throws JsonProcessingException {
+        return writer.writeValueAsBytes(CartResponse.from(cart));
+    }
+
+    /**
+     * The cart as the endpoints serialized it before carts held lines: every unit is a full item.
+     */
+    public record LegacyCart(Long id, List<LegacyItem> items, LegacyUser user, BigDecimal total) {}
+
+    public record LegacyItem(Long id, String name, BigDecimal price, String description) {}
+
+    public record LegacyUser(long id, String username) {}
+}
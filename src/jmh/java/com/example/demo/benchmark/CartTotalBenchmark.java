@@ -0,0 +1,70 @@
+package com.example.demo.benchmark;
+
+
+import com.example.demo.model.persistence.*;
+import java.math.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Cost of totalling a large cart: the old per-unit {@link BigDecimal} additions, a {@link BigDecimal} multiply per
+ * line, and the {@link Money} long arithmetic that {@link Cart} now uses. Run with {@code -prof gc} to compare the
+ * allocation per total.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartTotalBenchmark {
+
+    @Param({"10", "100"})
+    private int lines;
+
+    @Param({"1", "5000"})
+    private int quantity;
+
+    private BigDecimal[] decimalPrices;
+    private Money[] moneyPrices;
+
+    @Setup
+    public void setUp() {
+        decimalPrices = new BigDecimal[lines];
+        moneyPrices = new Money[lines];
+        for (int i = 0; i < lines; i++) {
+            decimalPrices[i] = BigDecimal.valueOf(199 + i, 2);
+            moneyPrices[i] = Money.ofMinor(199 + i);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalPerUnit() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal price : decimalPrices) {
+            for (int unit = 0; unit < quantity; unit++) {
+                total = total.add(price);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTimesQuantity() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal price : decimalPrices) {
+            total = total.add(price.multiply(BigDecimal.valueOf(quantity)));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money moneyTimesQuantity() {
+        Money total = Money.zero();
+        for (Money price : moneyPrices) {
+            total = total.plus(price.times(quantity));
+        }
+        return total;
+    }
+}
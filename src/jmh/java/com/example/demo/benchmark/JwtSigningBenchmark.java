@@ -0,0 +1,69 @@
+package com.example.demo.benchmark;
+
+
+import com.auth0.jwt.*;
+import com.example.demo.security.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Sign and verify throughput of a typical access token for each algorithm the {@link KeyRing} supports.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtSigningBenchmark {
+
+    @Param({"HS256", "HS512", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private KeyRing keyRing;
+    private String token;
+
+    @Setup
+    public void setUp()
+            throws GeneralSecurityException {
+        JwtKeyRingProperties.Key key;
+        if (algorithm.startsWith("HS")) {
+            key = new JwtKeyRingProperties.Key("bench", algorithm, SecurityConstants.SECRET, null, null);
+        } else {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.equals("ES256") ? "EC" : "Ed25519");
+            if (algorithm.equals("ES256")) {
+                generator.initialize(256);
+            }
+            KeyPair keyPair = generator.generateKeyPair();
+            key = new JwtKeyRingProperties.Key("bench", algorithm, null, Base64.getEncoder()
+                                                                              .encodeToString(keyPair.getPrivate()
+                                                                                                     .getEncoded()),
+                    Base64.getEncoder()
+                          .encodeToString(keyPair.getPublic()
+                                                 .getEncoded()));
+        }
+        keyRing = new KeyRing(new JwtKeyRingProperties("bench", List.of(key)));
+        token = sign();
+    }
+
+    @Benchmark
+    public String sign() {
+        return JWT.create()
+                  .withKeyId("bench")
+                  .withSubject("benchmarkUser")
+                  .withClaim(SecurityConstants.USER_ID_CLAIM, 42L)
+                  .withClaim(SecurityConstants.CART_ID_CLAIM, 42L)
+                  .withExpiresAt(new Date(System.currentTimeMillis() + SecurityConstants.EXPIRATION_TIME))
+                  .sign(keyRing.activeKey()
+                               .algorithm());
+    }
+
+    @Benchmark
+    public Object verify() {
+        return keyRing.verifier("bench")
+                      .verify(token);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.benchmark;
+
+
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.requests.*;
+import com.fasterxml.jackson.databind.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Cost of turning a login body into credentials: a fresh {@link ObjectMapper} binding to the {@link User} entity, as
+ * the login filter used to do, against the shared {@link ObjectReader} binding to {@link LoginRequest}. Run with
+ * {@code -prof gc} to see the allocation per login ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginParsingBenchmark {
+
+    private static final ObjectReader LOGIN_REQUEST_READER = new ObjectMapper().readerFor(LoginRequest.class);
+
+    private final byte[] body = "{\"username\": \"benchmarkUser\", \"password\": \"benchmarkPassword\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public User newObjectMapperToEntity()
+            throws IOException {
+        return new ObjectMapper().readValue(new ByteArrayInputStream(body), User.class);
+    }
+
+    @Benchmark
+    public LoginRequest sharedReaderToRecord()
+            throws IOException {
+        return LOGIN_REQUEST_READER.readValue(body);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.benchmark;
+
+
+import com.example.demo.security.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.*;
+
+
+/**
+ * Hashes per second per core for every supported password encoder setting. Runs single-threaded, so the reported
+ * throughput is the per-core rate; multiply by the size of the password hashing pool to get the login ceiling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class PasswordEncoderBenchmark {
+
+    @Param({"bcrypt:10", "bcrypt:12", "bcrypt:14", "argon2", "scrypt"})
+    public String setting;
+
+    private PasswordEncoder encoder;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        String[] parts = setting.split(":");
+        int bcryptStrength = parts.length > 1 ? Integer.parseInt(parts[1]) : 10;
+        encoder = PasswordEncoders.createDelegatingPasswordEncoder(parts[0], bcryptStrength);
+        encoded = encoder.encode("benchmarkPassword");
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("benchmarkPassword");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("benchmarkPassword", encoded);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.demo.benchmark;
+
+
+import com.example.demo.*;
+import com.example.demo.security.*;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.*;
+import io.micrometer.core.instrument.simple.*;
+import java.net.*;
+import java.net.http.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import jdk.jfr.consumer.*;
+import org.springframework.boot.builder.*;
+import org.springframework.context.*;
+
+
+/**
+ * Compares request throughput with Tomcat's platform-thread pool against virtual request threads, at a range of
+ * concurrent connections. Each connection loops on {@code GET /api/order/history}, a blocking JPA read, for the
+ * measurement period.
+ * <p>
+ * While the virtual-thread run is under load, JFR {@code jdk.VirtualThreadPinned} events are collected and the
+ * frames that pinned a carrier thread are reported, however short the pin, which is how the JDBC and Hibernate path
+ * is checked for pinning. The comparison table and the pinned event count are written to {@code --output} (default
+ * {@code target/virtual-thread-load-test.txt}), and the run exits with status 1 if any virtual thread was pinned.
+ * <p>
+ * Arguments are the connection counts (default {@code 1000 5000 10000}), optionally preceded by
+ * {@code --duration=PT20S} and {@code --output=<file>}. 10k connections need an open-file limit well above 20k
+ * ({@code ulimit -n}), since client and server sockets live in the same process.
+ */
+public final class VirtualThreadLoadTest {
+
+    private VirtualThreadLoadTest() {}
+
+    public static void main(String[] args)
+            throws Exception {
+        Duration duration = Duration.ofSeconds(20);
+        Path output = Path.of("target", "virtual-thread-load-test.txt");
+        List<Integer> connections = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--duration=")) {
+                duration = Duration.parse(arg.substring("--duration=".length()));
+            } else if (arg.startsWith("--output=")) {
+                output = Path.of(arg.substring("--output=".length()));
+            } else {
+                connections.add(Integer.parseInt(arg));
+            }
+        }
+        if (connections.isEmpty()) {
+            connections = List.of(1000, 5000, 10000);
+        }
+
+        List<String> results = new ArrayList<>();
+        long pinned = 0;
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            Map<String, LongAdder> pinnedFrames = new ConcurrentHashMap<>();
+            try (ConfigurableApplicationContext context = start(virtualThreads);
+                 RecordingStream pinning = new RecordingStream()) {
+                pinning.enable("jdk.VirtualThreadPinned")
+                       .withThreshold(Duration.ZERO)
+                       .withStackTrace();
+                pinning.onEvent("jdk.VirtualThreadPinned", event -> pinnedFrames
+                        .computeIfAbsent(pinnedFrame(event), frame -> new LongAdder())
+                        .increment());
+                pinning.startAsync();
+
+                int port = context.getEnvironment()
+                                  .getRequiredProperty("local.server.port", Integer.class);
+                String token = login(port);
+                for (int connectionCount : connections) {
+                    results.add(run(port, token, virtualThreads, connectionCount, duration));
+                }
+            }
+            if (virtualThreads) {
+                pinned = pinnedFrames.values()
+                                     .stream()
+                                     .mapToLong(LongAdder::sum)
+                                     .sum();
+                System.out.println("Pinned virtual threads by frame:");
+                pinnedFrames.entrySet()
+                            .stream()
+                            .sorted(Comparator.comparingLong(e -> -e.getValue()
+                                                                    .sum()))
+                            .limit(10)
+                            .forEach(e -> System.out.printf("%8d  %s%n", e.getValue()
+                                                                            .sum(), e.getKey()));
+            }
+        }
+
+        List<String> report = new ArrayList<>();
+        report.add("%-9s %11s %10s %10s %9s %9s %8s".formatted("mode", "connections", "requests", "req/s", "p50 ms",
+                "p99 ms", "errors"));
+        report.addAll(results);
+        report.add("pinned virtual threads: %d".formatted(pinned));
+        report.forEach(System.out::println);
+        Path parent = output.toAbsolutePath()
+                            .getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(output, report);
+        System.out.println("Results written to " + output);
+
+        if (pinned > 0) {
+            System.err.printf("%d virtual thread pinning events; see the frames above%n", pinned);
+            System.exit(1);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(EcommerceApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.max-connections=20000",
+                        "--server.tomcat.accept-count=10000",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+    }
+
+    private static String login(int port)
+            throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        String credentials = "{\"username\": \"loadUser\", \"password\": \"loadPassword\", \"repeatedPassword\": \"loadPassword\"}";
+        client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/user/create"))
+                               .header("Content-Type", "application/json")
+                               .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                               .build(), HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+                           .header("Content-Type", "application/json")
+                           .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                           .build(), HttpResponse.BodyHandlers.discarding());
+        return response.headers()
+                       .firstValue(SecurityConstants.HEADER_STRING)
+                       .orElseThrow();
+    }
+
+    private static String run(int port, String token, boolean virtualThreads, int connectionCount, Duration duration)
+            throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Timer latency = Timer.builder("request")
+                             .publishPercentiles(0.5, 0.99)
+                             .register(registry);
+        LongAdder errors = new LongAdder();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/order/history"))
+                                         .header(SecurityConstants.HEADER_STRING, token)
+                                         .timeout(Duration.ofSeconds(30))
+                                         .GET()
+                                         .build();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                                          .executor(clients)
+                                          .connectTimeout(Duration.ofSeconds(30))
+                                          .build();
+            long deadline = System.nanoTime() + duration.toNanos();
+            CountDownLatch done = new CountDownLatch(connectionCount);
+            for (int i = 0; i < connectionCount; i++) {
+                clients.submit(() -> {
+                    try {
+                        while (System.nanoTime() < deadline) {
+                            long start = System.nanoTime();
+                            try {
+                                HttpResponse<Void> response = client.send(request,
+                                        HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() != 200) {
+                                    errors.increment();
+                                }
+                            } catch (Exception e) {
+                                errors.increment();
+                            }
+                            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+
+        HistogramSnapshot snapshot = latency.takeSnapshot();
+        return "%-9s %11d %10d %10.0f %9.1f %9.1f %8d".formatted(virtualThreads ? "virtual" : "platform",
+                connectionCount, latency.count(), latency.count() / (double) duration.toSeconds(),
+                snapshot.percentileValues()[0].value(TimeUnit.MILLISECONDS),
+                snapshot.percentileValues()[1].value(TimeUnit.MILLISECONDS), errors.sum());
+    }
+
+    private static String pinnedFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "<no stack trace>";
+        }
+        return event.getStackTrace()
+                    .getFrames()
+                    .stream()
+                    .filter(frame -> !frame.getMethod()
+                                           .getType()
+                                           .getName()
+                                           .startsWith("java."))
+                    .findFirst()
+                    .map(frame -> frame.getMethod()
+                                       .getType()
+                                       .getName() + "." + frame.getMethod()
+                                                                .getName())
+                    .orElse("<jdk internal>");
+    }
+}
@@ -1,18 +1,23 @@
 package com.example.demo;
 
 
+import com.example.demo.security.*;
+import org.springframework.beans.factory.*;
+import org.springframework.beans.factory.annotation.*;
 import org.springframework.boot.*;
 import org.springframework.boot.autoconfigure.*;
 import org.springframework.boot.autoconfigure.domain.*;
 import org.springframework.boot.autoconfigure.security.servlet.*;
 import org.springframework.context.annotation.*;
 import org.springframework.data.jpa.repository.config.*;
-import org.springframework.security.crypto.bcrypt.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.security.crypto.password.*;
 
 
 @EnableJpaRepositories("com.example.demo.model.persistence.repositories")
 @EntityScan("com.example.demo.model.persistence")
 @SpringBootApplication(exclude = {SecurityAutoConfiguration.class})
+@EnableScheduling
 public class EcommerceApplication {
 
     public static void main(String[] args) {
@@ -20,7 +25,11 @@ public class EcommerceApplication {
     }
 
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.encoder:bcrypt}") String encoderId,
+            @Value("${security.password.bcrypt.strength:10}") int bcryptStrength,
+            ObjectProvider<PasswordHashingExecutor> hashingExecutor) {
+        PasswordEncoder encoder = PasswordEncoders.createDelegatingPasswordEncoder(encoderId, bcryptStrength);
+        PasswordHashingExecutor executor = hashingExecutor.getIfAvailable();
+        return executor == null ? encoder : new OffloadedPasswordEncoder(encoder, executor);
     }
 }
@@ -0,0 +1,139 @@
+package com.example.demo.cart;
+
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Timer;
+import java.sql.*;
+import java.time.*;
+import java.time.Clock;
+import java.util.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+
+/**
+ * Empties carts whose contents have not changed for {@code cart.sweeper.abandoned-after}. Their lines are deleted and
+ * their total reset with set-based statements, {@code cart.sweeper.chunk-size} carts per transaction, so that no run
+ * holds locks on more than one chunk of carts at a time.
+ * <p>
+ * Each chunk first resets the carts that are still stale, which locks their rows against concurrent updates, and
+ * then deletes the lines of exactly those carts. A cart changed after it was picked is skipped. The cart store drops
+ * its cached copies of the cleared carts afterwards.
+ */
+@Component
+public class AbandonedCartSweeper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+    private static final String SELECT_STALE = """
+            select c.id from carts c
+            where c.id > :after and c.updated_at < :cutoff
+              and exists (select 1 from cart_lines l where l.cart_id = c.id)
+            order by c.id
+            limit :limit""";
+    private static final String RESET_CARTS = """
+            update carts set total = 0, version = version + 1
+            where id in (:ids) and updated_at < :cutoff""";
+    private static final String DELETE_LINES = """
+            delete from cart_lines
+            where cart_id in (select id from carts where id in (:ids) and updated_at < :cutoff)""";
+
+    private final NamedParameterJdbcOperations jdbcOperations;
+    private final TransactionOperations transactionOperations;
+    private final CartStore cartStore;
+    private final Duration abandonedAfter;
+    private final int chunkSize;
+    private final Clock clock;
+    private final Timer runTimer;
+    private final Counter cartsCounter;
+    private final Counter linesCounter;
+
+    @Autowired
+    public AbandonedCartSweeper(NamedParameterJdbcOperations jdbcOperations,
+            TransactionOperations transactionOperations, CartStore cartStore, MeterRegistry meterRegistry,
+            @Value("${cart.sweeper.abandoned-after:P30D}") Duration abandonedAfter,
+            @Value("${cart.sweeper.chunk-size:500}") int chunkSize) {
+        this(jdbcOperations, transactionOperations, cartStore, meterRegistry, abandonedAfter, chunkSize,
+                Clock.systemUTC());
+    }
+
+    AbandonedCartSweeper(NamedParameterJdbcOperations jdbcOperations, TransactionOperations transactionOperations,
+            CartStore cartStore, MeterRegistry meterRegistry, Duration abandonedAfter, int chunkSize, Clock clock) {
+        this.jdbcOperations = jdbcOperations;
+        this.transactionOperations = transactionOperations;
+        this.cartStore = cartStore;
+        this.abandonedAfter = abandonedAfter;
+        this.chunkSize = chunkSize;
+        this.clock = clock;
+
+        this.runTimer = Timer.builder("cart.sweeper.run")
+                             .description("Time spent sweeping abandoned carts")
+                             .register(meterRegistry);
+        this.cartsCounter = Counter.builder("cart.sweeper.carts")
+                                   .description("Abandoned carts emptied")
+                                   .register(meterRegistry);
+        this.linesCounter = Counter.builder("cart.sweeper.lines")
+                                   .description("Cart line rows deleted from abandoned carts")
+                                   .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${cart.sweeper.interval-ms:3600000}",
+            fixedDelayString = "${cart.sweeper.interval-ms:3600000}")
+    public void scheduledSweep() {
+        sweep();
+    }
+
+    /**
+     * Empties all abandoned carts, chunk by chunk.
+     *
+     * @return the number of cart line rows deleted
+     */
+    public int sweep() {
+        Timestamp cutoff = Timestamp.from(clock.instant()
+                                               .minus(abandonedAfter));
+        int carts = 0;
+        int lines = 0;
+        long start = System.nanoTime();
+        try {
+            long after = 0;
+            while (true) {
+                List<Long> ids = jdbcOperations.queryForList(SELECT_STALE,
+                        Map.of("after", after, "cutoff", cutoff, "limit", chunkSize), Long.class);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Swept swept = sweepChunk(ids, cutoff);
+                carts += swept.carts();
+                lines += swept.lines();
+                ids.forEach(cartStore::evict);
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+                after = ids.getLast();
+            }
+        } finally {
+            runTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+        cartsCounter.increment(carts);
+        linesCounter.increment(lines);
+        if (carts > 0) {
+            int sweptCarts = carts;
+            int sweptLines = lines;
+            LOGGER.atInfo().log(() -> "Emptied %d abandoned carts, deleting %d cart lines".formatted(sweptCarts,
+                    sweptLines));
+        }
+        return lines;
+    }
+
+    private Swept sweepChunk(List<Long> ids, Timestamp cutoff) {
+        Map<String, Object> parameters = Map.of("ids", ids, "cutoff", cutoff);
+        return transactionOperations.execute(status -> new Swept(jdbcOperations.update(RESET_CARTS, parameters),
+                jdbcOperations.update(DELETE_LINES, parameters)));
+    }
+
+    private record Swept(int carts, int lines) {}
+}
@@ -0,0 +1,238 @@
+package com.example.demo.cart;
+
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.locks.*;
+import org.slf4j.*;
+
+
+/**
+ * Append-only file of {@link CartSnapshot}s for carts whose latest state has not been flushed yet. The last record
+ * of a cart is its current state.
+ * <p>
+ * A full flush first {@link #rotate() rotates} the file aside. Changes made while the flush runs go to a fresh file.
+ * The rotated file is only deleted once the flush has committed. After a crash, {@link #readPending()} returns the
+ * latest record of every cart from both files.
+ * <p>
+ * With fsync enabled, records are made durable by group commit. {@link #append(CartSnapshot)} only writes the record;
+ * {@link #sync()}, called once the caller has released its own locks, waits until a single fsync covers it. The first
+ * waiter waits {@code groupCommitDelay} for more records and then forces the file for everything appended so far,
+ * while the others wait for that fsync instead of issuing their own.
+ */
+final class CartJournal
+        implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CartJournal.class);
+
+    private final Path path;
+    private final Path rotatedPath;
+    private final boolean fsync;
+    private final long groupCommitDelayNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition syncDone = lock.newCondition();
+    private FileChannel channel;
+    private long appended;
+    private long synced;
+    private boolean syncing;
+
+    CartJournal(Path path, boolean fsync)
+            throws IOException {
+        this(path, fsync, Duration.ZERO);
+    }
+
+    CartJournal(Path path, boolean fsync, Duration groupCommitDelay)
+            throws IOException {
+        this.path = path;
+        this.rotatedPath = path.resolveSibling(path.getFileName() + ".flushing");
+        this.fsync = fsync;
+        this.groupCommitDelayNanos = groupCommitDelay.toNanos();
+        Path parent = path.toAbsolutePath()
+                          .getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = open();
+    }
+
+    /**
+     * Writes the record without waiting for it to be durable; see {@link #sync()}.
+     */
+    void append(CartSnapshot snapshot) {
+        ByteBuffer buffer = ByteBuffer.wrap((snapshot.toJournalLine() + "\n").getBytes(StandardCharsets.UTF_8));
+        lock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            appended++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to cart journal " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every record appended before the call is on disk. Does nothing when fsync is disabled.
+     */
+    void sync() {
+        if (!fsync) {
+            return;
+        }
+        lock.lock();
+        try {
+            long target = appended;
+            while (synced < target) {
+                if (syncing) {
+                    syncDone.awaitUninterruptibly();
+                } else {
+                    force();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Leads one group commit. Runs with the lock held, but releases it while waiting for more records and while the
+     * file is forced, so that other threads can keep appending.
+     */
+    private void force() {
+        syncing = true;
+        try {
+            if (groupCommitDelayNanos > 0) {
+                lock.unlock();
+                try {
+                    LockSupport.parkNanos(groupCommitDelayNanos);
+                } finally {
+                    lock.lock();
+                }
+            }
+            long covered = appended;
+            FileChannel current = channel;
+            boolean forced = false;
+            lock.unlock();
+            try {
+                current.force(false);
+                forced = true;
+            } catch (ClosedChannelException e) {
+                // Rotated or closed meanwhile; both force the file before closing it.
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not sync cart journal " + path, e);
+            } finally {
+                lock.lock();
+            }
+            if (forced) {
+                synced = Math.max(synced, covered);
+            } else if (synced < covered) {
+                throw new UncheckedIOException("Cart journal " + path + " was closed", new ClosedChannelException());
+            }
+        } finally {
+            syncing = false;
+            syncDone.signalAll();
+        }
+    }
+
+    /**
+     * Moves the current records aside so that they can be discarded once they are flushed. Records left over from an
+     * earlier rotation are kept.
+     */
+    void rotate()
+            throws IOException {
+        lock.lock();
+        try {
+            channel.force(false);
+            synced = appended;
+            channel.close();
+            if (Files.exists(rotatedPath)) {
+                Files.write(rotatedPath, Files.readAllBytes(path), StandardOpenOption.APPEND);
+                Files.delete(path);
+            } else {
+                Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+            channel = open();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void discardRotated()
+            throws IOException {
+        lock.lock();
+        try {
+            Files.deleteIfExists(rotatedPath);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the latest record of every cart in the rotated and the current file.
+     */
+    Collection<CartSnapshot> readPending()
+            throws IOException {
+        lock.lock();
+        try {
+            Map<Long, CartSnapshot> pending = new LinkedHashMap<>();
+            for (Path file : List.of(rotatedPath, path)) {
+                if (!Files.exists(file)) {
+                    continue;
+                }
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        CartSnapshot snapshot = CartSnapshot.parseJournalLine(line);
+                        pending.put(snapshot.cartId(), snapshot);
+                    } catch (IllegalArgumentException e) {
+                        // A write torn by the crash; only the last line of a file can be affected.
+                        LOGGER.atWarn().log(() -> "Skipping malformed cart journal line in %s".formatted(file));
+                    }
+                }
+            }
+            return pending.values();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear()
+            throws IOException {
+        lock.lock();
+        try {
+            channel.truncate(0);
+            Files.deleteIfExists(rotatedPath);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        lock.lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+                synced = appended;
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel open()
+            throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.cart;
+
+
+import com.example.demo.model.persistence.*;
+import io.micrometer.core.instrument.*;
+import java.util.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+
+/**
+ * Changes an item's price and carries the new price into every cart holding the item. The affected carts are repriced
+ * with set-based statements, {@code cart.reprice.chunk-size} carts per transaction: the item's lines get the new unit
+ * price and each cart's total is recomputed from its lines, without loading any cart.
+ * <p>
+ * Each chunk is repriced while the cart store holds back its flushes: pending changes of the chunk's carts are
+ * flushed, the rows are updated, and the store reprices the copies it holds, since a cart can change again between
+ * the flush and the update. No flush can write an older copy of a cart over the updated rows meanwhile. Finally the
+ * store reprices every cached cart still holding the item at another price, such as a cart that added the item at the
+ * old price but has not been written since.
+ */
+@Component
+public class CartRepricer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CartRepricer.class);
+
+    private static final String UPDATE_ITEM = "update items set price = :price where id = :itemId";
+    private static final String SELECT_CARTS = """
+            select distinct cart_id from cart_lines
+            where item_id = :itemId and cart_id > :after
+            order by cart_id
+            limit :limit""";
+    private static final String UPDATE_LINES = """
+            update cart_lines set unit_price = :price, version = version + 1
+            where item_id = :itemId and cart_id in (:ids)""";
+    private static final String UPDATE_TOTALS = """
+            update carts c
+            set total = (select coalesce(sum(l.quantity * l.unit_price), 0) from cart_lines l where l.cart_id = c.id),
+                version = version + 1
+            where c.id in (:ids)""";
+
+    private final NamedParameterJdbcOperations jdbcOperations;
+    private final TransactionOperations transactionOperations;
+    private final CartStore cartStore;
+    private final int chunkSize;
+    private final Counter repricedCounter;
+
+    public CartRepricer(NamedParameterJdbcOperations jdbcOperations, TransactionOperations transactionOperations,
+            CartStore cartStore, MeterRegistry meterRegistry,
+            @Value("${cart.reprice.chunk-size:500}") int chunkSize) {
+        this.jdbcOperations = jdbcOperations;
+        this.transactionOperations = transactionOperations;
+        this.cartStore = cartStore;
+        this.chunkSize = chunkSize;
+        this.repricedCounter = Counter.builder("cart.reprice.carts")
+                                      .description("Carts repriced after an item price change")
+                                      .register(meterRegistry);
+    }
+
+    /**
+     * Sets the item's price and reprices the carts holding it.
+     *
+     * @return the number of carts repriced, or {@code -1} if there is no item with that id
+     */
+    public int changePrice(long itemId, Money price) {
+        Map<String, Object> item = Map.of("itemId", itemId, "price", price.toBigDecimal());
+        Integer updated = transactionOperations.execute(status -> jdbcOperations.update(UPDATE_ITEM, item));
+        if (updated == null || updated == 0) {
+            return -1;
+        }
+
+        int carts = 0;
+        long after = 0;
+        while (true) {
+            List<Long> ids = jdbcOperations.queryForList(SELECT_CARTS,
+                    Map.of("itemId", itemId, "after", after, "limit", chunkSize), Long.class);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Map<String, Object> parameters = Map.of("itemId", itemId, "price", price.toBigDecimal(), "ids", ids);
+            cartStore.holdingFlushes(() -> {
+                ids.forEach(cartStore::flush);
+                transactionOperations.executeWithoutResult(status -> {
+                    jdbcOperations.update(UPDATE_LINES, parameters);
+                    jdbcOperations.update(UPDATE_TOTALS, parameters);
+                });
+                ids.forEach(cartId -> cartStore.reprice(cartId, itemId, price));
+            });
+            carts += ids.size();
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            after = ids.getLast();
+        }
+        carts += cartStore.repriceCached(itemId, price);
+        repricedCounter.increment(carts);
+        int repriced = carts;
+        LOGGER.atInfo().log(() -> "Item %d repriced to %s in %d carts".formatted(itemId, price, repriced));
+        return carts;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.cart;
+
+
+import com.example.demo.model.persistence.*;
+import java.time.*;
+import java.util.*;
+
+
+/**
+ * The persistent state of a cart at one point in time: what the write-behind store flushes and journals.
+ */
+record CartSnapshot(long cartId, long version, Instant updatedAt, Money total, List<Line> lines) {
+
+    record Line(long itemId, int quantity, Money unitPrice) {}
+
+    static CartSnapshot of(Cart cart) {
+        List<Line> lines = new ArrayList<>(cart.getLines()
+                                               .size());
+        cart.getLines()
+            .forEach(line -> lines.add(new Line(line.getItem()
+                                                    .getId(), line.getQuantity(), line.getUnitPrice())));
+        return new CartSnapshot(cart.getId(), cart.getVersion() == null ? 0 : cart.getVersion(),
+                cart.getUpdatedAt() == null ? Instant.now() : cart.getUpdatedAt(),
+                cart.getTotal() == null ? Money.zero() : cart.getTotal(), lines);
+    }
+
+    /**
+     * One journal line: {@code cartId;version;updatedAt;total;itemId:quantity:unitPrice,...}, with the time in
+     * epoch milliseconds and amounts in minor units. Lines written before the time was recorded lack that field;
+     * they are read with the time of reading.
+     */
+    String toJournalLine() {
+        StringBuilder builder = new StringBuilder(32 + lines.size() * 24).append(cartId)
+                                                                       .append(';')
+                                                                       .append(version)
+                                                                       .append(';')
+                                                                       .append(updatedAt.toEpochMilli())
+                                                                       .append(';')
+                                                                       .append(total.minorUnits())
+                                                                       .append(';');
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(line.itemId())
+                   .append(':')
+                   .append(line.quantity())
+                   .append(':')
+                   .append(line.unitPrice()
+                               .minorUnits());
+        }
+        return builder.toString();
+    }
+
+    static CartSnapshot parseJournalLine(String journalLine) {
+        String[] fields = journalLine.split(";", -1);
+        if (fields.length == 4) {
+            fields = new String[]{fields[0], fields[1], null, fields[2], fields[3]};
+        } else if (fields.length != 5) {
+            throw new IllegalArgumentException("Malformed cart journal line: " + journalLine);
+        }
+        List<Line> lines = new ArrayList<>();
+        if (!fields[4].isEmpty()) {
+            for (String line : fields[4].split(",")) {
+                String[] parts = line.split(":");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Malformed cart journal line: " + journalLine);
+                }
+                lines.add(new Line(Long.parseLong(parts[0]), Integer.parseInt(parts[1]),
+                        Money.ofMinor(Long.parseLong(parts[2]))));
+            }
+        }
+        Instant updatedAt = fields[2] == null ? Instant.now() : Instant.ofEpochMilli(Long.parseLong(fields[2]));
+        return new CartSnapshot(Long.parseLong(fields[0]), Long.parseLong(fields[1]), updatedAt,
+                Money.ofMinor(Long.parseLong(fields[3])), lines);
+    }
+}
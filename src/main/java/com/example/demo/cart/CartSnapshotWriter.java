@@ -0,0 +1,57 @@
+package com.example.demo.cart;
+
+
+import java.sql.*;
+import java.util.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+
+/**
+ * Writes cart snapshots with three JDBC batches in one transaction. The batches update the cart totals and
+ * versions, delete the old lines and insert the new lines. The version written is the one the store counted in
+ * memory, so it still matches after the cart is evicted and loaded again.
+ */
+class CartSnapshotWriter {
+
+    private static final String UPDATE_CART = "update carts set total = ?, version = ?, updated_at = ? where id = ?";
+    private static final String DELETE_LINES = "delete from cart_lines where cart_id = ?";
+    private static final String INSERT_LINE =
+            "insert into cart_lines (cart_id, item_id, quantity, unit_price, version) values (?, ?, ?, ?, 0)";
+
+    private final JdbcOperations jdbcOperations;
+    private final TransactionTemplate transactionTemplate;
+
+    CartSnapshotWriter(JdbcOperations jdbcOperations, PlatformTransactionManager transactionManager) {
+        this.jdbcOperations = jdbcOperations;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    void write(List<CartSnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        List<Object[]> carts = new ArrayList<>(snapshots.size());
+        List<Object[]> cartIds = new ArrayList<>(snapshots.size());
+        List<Object[]> lines = new ArrayList<>();
+        for (CartSnapshot snapshot : snapshots) {
+            carts.add(new Object[]{snapshot.total()
+                                           .toBigDecimal(), snapshot.version(), Timestamp.from(snapshot.updatedAt()),
+                    snapshot.cartId()});
+            cartIds.add(new Object[]{snapshot.cartId()});
+            for (CartSnapshot.Line line : snapshot.lines()) {
+                lines.add(new Object[]{snapshot.cartId(), line.itemId(), line.quantity(), line.unitPrice()
+                                                                                            .toBigDecimal()});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcOperations.batchUpdate(UPDATE_CART, carts);
+            jdbcOperations.batchUpdate(DELETE_LINES, cartIds);
+            if (!lines.isEmpty()) {
+                jdbcOperations.batchUpdate(INSERT_LINE, lines);
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.cart;
+
+
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.responses.*;
+import java.util.function.*;
+
+
+/**
+ * Where cart reads and writes go. Which implementation is active is chosen with {@code cart.store.mode}:
+ * {@code jpa} (the default) saves every change synchronously, and {@code write-behind} keeps carts in memory and
+ * flushes them to the database in the background.
+ */
+public interface CartStore {
+
+    /**
+     * Returns the cart with its lines and items loaded, or {@code null} if there is no cart with that id. The cart's
+     * version changes with every update.
+     */
+    Cart get(long cartId);
+
+    /**
+     * Returns the cart as a response, or {@code null} if there is no cart with that id. Stores that read the
+     * database build it with a projection instead of loading the entity graph.
+     */
+    CartResponse view(long cartId);
+
+    /**
+     * Applies the mutation to the cart, records the time of the change and stores the result. The mutation may run
+     * more than once if the store retries, so it must not have side effects outside the cart.
+     *
+     * @return the updated cart, or {@code null} if there is no cart with that id
+     */
+    Cart update(long cartId, Consumer<Cart> mutation);
+
+    /**
+     * Drops the store's cached copy of the cart after its rows were changed behind the store's back. A cart with
+     * changes not yet written is kept, since those changes are newer.
+     */
+    void evict(long cartId);
+
+    /**
+     * Carries an item price change that was already written to the cart's rows into the store's cached copy. A cached
+     * cart with changes not yet written gets the new price in memory, so that writing it later does not restore the
+     * old one; a clean one is dropped, like {@link #evict(long)}.
+     */
+    void reprice(long cartId, long itemId, Money unitPrice);
+
+    /**
+     * Gives every cached cart holding the item at a different price the new price and marks it as changed, so that it
+     * is written with that price. This covers carts whose rows did not hold the item yet when they were repriced.
+     *
+     * @return the number of cached carts repriced
+     */
+    int repriceCached(long itemId, Money unitPrice);
+
+    /**
+     * Runs the action while the store writes no cart to the database, except through {@link #flush(long)} calls made
+     * by the action itself. Lets cart rows be changed behind the store's back without a concurrent flush writing an
+     * older copy over them.
+     */
+    void holdingFlushes(Runnable action);
+
+    /**
+     * Makes sure any pending change to the cart has reached the database.
+     */
+    void flush(long cartId);
+}
@@ -0,0 +1,81 @@
+package com.example.demo.cart;
+
+
+import io.micrometer.core.instrument.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Compares stored cart totals with the sum of their line totals on a sample of carts. Each run checks
+ * {@code cart.consistency.sample-size} consecutive carts from a random starting id, so a run costs one range scan
+ * however many carts there are. Mismatches are counted and logged; nothing is corrected.
+ */
+@Component
+public class CartTotalChecker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CartTotalChecker.class);
+
+    private static final String SELECT_MISMATCHES = """
+            select c.id from carts c
+            left join cart_lines l on l.cart_id = c.id
+            where c.id between :from and :to
+            group by c.id, c.total
+            having coalesce(c.total, 0) <> coalesce(sum(l.quantity * l.unit_price), 0)
+            order by c.id""";
+    private static final String SELECT_RANGE = """
+            select id from carts where id >= :from order by id limit :limit""";
+
+    private final NamedParameterJdbcOperations jdbcOperations;
+    private final int sampleSize;
+    private final Counter checkedCounter;
+    private final Counter mismatchCounter;
+
+    public CartTotalChecker(NamedParameterJdbcOperations jdbcOperations, MeterRegistry meterRegistry,
+            @Value("${cart.consistency.sample-size:200}") int sampleSize) {
+        this.jdbcOperations = jdbcOperations;
+        this.sampleSize = sampleSize;
+        this.checkedCounter = Counter.builder("cart.consistency.checked")
+                                     .register(meterRegistry);
+        this.mismatchCounter = Counter.builder("cart.consistency.mismatches")
+                                      .description("Carts whose stored total differs from the sum of their lines")
+                                      .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${cart.consistency.interval-ms:600000}",
+            fixedDelayString = "${cart.consistency.interval-ms:600000}")
+    public void checkSample() {
+        Long maxId = jdbcOperations.getJdbcOperations()
+                                   .queryForObject("select max(id) from carts", Long.class);
+        if (maxId != null) {
+            check(ThreadLocalRandom.current()
+                                   .nextLong(1, maxId + 1), sampleSize);
+        }
+    }
+
+    /**
+     * Checks up to {@code limit} carts starting at id {@code from}.
+     *
+     * @return the ids of the carts whose total does not match their lines
+     */
+    public List<Long> check(long from, int limit) {
+        List<Long> range = jdbcOperations.queryForList(SELECT_RANGE, Map.of("from", from, "limit", limit),
+                Long.class);
+        if (range.isEmpty()) {
+            return List.of();
+        }
+        List<Long> mismatches = jdbcOperations.queryForList(SELECT_MISMATCHES,
+                Map.of("from", from, "to", range.getLast()), Long.class);
+        checkedCounter.increment(range.size());
+        mismatchCounter.increment(mismatches.size());
+        if (!mismatches.isEmpty()) {
+            LOGGER.atWarn().log(() -> "Cart totals do not match their lines for carts %s".formatted(mismatches));
+        }
+        return mismatches;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.cart;
+
+
+import com.example.demo.model.persistence.*;
+import io.micrometer.core.instrument.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.dao.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+
+/**
+ * Runs a read-modify-write of a cart in its own transaction and retries it when the save loses an optimistic lock
+ * race against a concurrent update of the same cart, or when a concurrent update added the same item first and the
+ * insert of the line hits the {@link CartLine#CART_ITEM_CONSTRAINT} unique constraint. Each retry re-reads the cart,
+ * so the mutation is applied on top of the winning write instead of overwriting it.
+ * <p>
+ * Retries back off exponentially with full jitter. When the caller already runs in a transaction the mutation is
+ * attempted only once, because the outer transaction cannot be retried from here.
+ */
+@Component
+public class CartUpdateExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CartUpdateExecutor.class);
+
+    private final TransactionOperations transactionOperations;
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+    private final Counter conflictCounter;
+    private final Counter retryCounter;
+    private final Counter exhaustedCounter;
+
+    @Autowired
+    public CartUpdateExecutor(TransactionOperations transactionOperations,
+            @Value("${cart.update.max-attempts:4}") int maxAttempts,
+            @Value("${cart.update.backoff:PT0.005S}") Duration baseBackoff,
+            MeterRegistry meterRegistry) {
+        this.transactionOperations = transactionOperations;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.conflictCounter = Counter.builder("cart.update.conflicts")
+                                      .description("Cart saves that lost an optimistic lock race")
+                                      .register(meterRegistry);
+        this.retryCounter = Counter.builder("cart.update.retries")
+                                   .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("cart.update.exhausted")
+                                       .description("Cart updates that still conflicted after the last attempt")
+                                       .register(meterRegistry);
+    }
+
+    /**
+     * Runs the mutation, retrying it on optimistic lock conflicts and duplicate cart lines.
+     *
+     * @throws OptimisticLockingFailureException if the last attempt still conflicts on a version
+     * @throws DataIntegrityViolationException   if the last attempt still adds a duplicate line, or a different
+     *                                           constraint is violated
+     */
+    public <T> T execute(Supplier<T> mutation) {
+        boolean retryable = !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionOperations.execute(status -> mutation.get());
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (e instanceof DataIntegrityViolationException && !isDuplicateLine(e)) {
+                    throw e;
+                }
+                conflictCounter.increment();
+                if (!retryable || attempt >= maxAttempts) {
+                    exhaustedCounter.increment();
+                    throw e;
+                }
+                int conflicts = attempt;
+                LOGGER.atDebug().log(() -> "Cart update conflict on attempt %d, retrying".formatted(conflicts));
+                retryCounter.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    private static boolean isDuplicateLine(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage()
+                                                   .toLowerCase(Locale.ROOT)
+                                                   .contains(CartLine.CART_ITEM_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backOff(int attempt) {
+        long ceiling = baseBackoffNanos << Math.min(attempt - 1, 10);
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current()
+                                                         .nextLong(ceiling));
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new IllegalStateException("Interrupted while backing off a cart update", e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.cart;
+
+
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.responses.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Reads carts through JPA and saves every change before returning, retrying optimistic lock conflicts with the
+ * {@link CartUpdateExecutor}.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store.mode", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore
+        implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final CartUpdateExecutor cartUpdateExecutor;
+
+    public JpaCartStore(CartRepository cartRepository, CartUpdateExecutor cartUpdateExecutor) {
+        this.cartRepository = cartRepository;
+        this.cartUpdateExecutor = cartUpdateExecutor;
+    }
+
+    @Override
+    public Cart get(long cartId) {
+        return cartRepository.findWithLinesById(cartId)
+                             .orElse(null);
+    }
+
+    @Override
+    public CartResponse view(long cartId) {
+        List<CartLineRow> rows = cartRepository.findLineRowsById(cartId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        CartLineRow first = rows.getFirst();
+        List<CartLineResponse> lines = new ArrayList<>(rows.size());
+        int itemCount = 0;
+        for (CartLineRow row : rows) {
+            if (row.itemId() != null) {
+                lines.add(new CartLineResponse(row.itemId(), row.itemName(), row.unitPrice(), row.quantity()));
+                itemCount += row.quantity();
+            }
+        }
+        return new CartResponse(first.cartId(), first.version() == null ? 0 : first.version(),
+                first.total() == null ? Money.zero() : first.total(), itemCount, lines);
+    }
+
+    @Override
+    public Cart update(long cartId, Consumer<Cart> mutation) {
+        return cartUpdateExecutor.execute(() -> {
+            Cart cart = cartRepository.findById(cartId)
+                                      .orElse(null);
+            if (cart == null) {
+                return null;
+            }
+            mutation.accept(cart);
+            cart.setUpdatedAt(Instant.now());
+            return cartRepository.save(cart);
+        });
+    }
+
+    @Override
+    public void evict(long cartId) {
+        // Nothing is cached.
+    }
+
+    @Override
+    public void reprice(long cartId, long itemId, Money unitPrice) {
+        // Nothing is cached.
+    }
+
+    @Override
+    public int repriceCached(long itemId, Money unitPrice) {
+        // Nothing is cached.
+        return 0;
+    }
+
+    @Override
+    public void holdingFlushes(Runnable action) {
+        action.run();
+    }
+
+    @Override
+    public void flush(long cartId) {
+        // Every update is already saved.
+    }
+}
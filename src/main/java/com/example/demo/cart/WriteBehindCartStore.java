@@ -0,0 +1,450 @@
+package com.example.demo.cart;
+
+
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.responses.*;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.*;
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+
+/**
+ * Serves carts from memory and writes them to the database in the background. Carts live in lock-striped shards.
+ * Every change replaces the cart with an updated copy with the next version and marks it dirty, so a cart handed out
+ * is never modified afterwards. Any number of changes between flushes cost one write.
+ * <p>
+ * Dirty carts are flushed in JDBC batches every {@code cart.store.flush-interval-ms}, on shutdown, and for a single
+ * cart on {@link #flush(long)} (before an order is submitted). Clean carts idle for longer than
+ * {@code cart.store.idle-timeout} are evicted.
+ * <p>
+ * Without a journal, changes not yet flushed are lost if the process dies. Setting {@code cart.store.journal.path}
+ * appends every change to that file, and carts still pending in it are written to the database on the next start.
+ * Changes are appended under the shard lock, but waiting for the journal's group commit happens after it is released.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store.mode", havingValue = "write-behind")
+public class WriteBehindCartStore
+        implements CartStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private final Shard[] shards;
+    private final CartRepository cartRepository;
+    private final TransactionTemplate loadTransaction;
+    private final CartSnapshotWriter writer;
+    private final CartJournal journal;
+    private final int batchSize;
+    private final long idleTimeoutNanos;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter flushFailureCounter;
+
+    @Autowired
+    public WriteBehindCartStore(CartRepository cartRepository, JdbcOperations jdbcOperations,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${cart.store.shards:64}") int shardCount,
+            @Value("${cart.store.flush.batch-size:500}") int batchSize,
+            @Value("${cart.store.idle-timeout:PT30M}") Duration idleTimeout,
+            @Value("${cart.store.journal.path:}") String journalPath,
+            @Value("${cart.store.journal.fsync:true}") boolean journalFsync,
+            @Value("${cart.store.journal.group-commit-delay:PT0.001S}") Duration groupCommitDelay)
+            throws IOException {
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        this.cartRepository = cartRepository;
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTransaction.setReadOnly(true);
+        this.writer = new CartSnapshotWriter(jdbcOperations, transactionManager);
+        this.journal = journalPath.isBlank() ? null : new CartJournal(Path.of(journalPath), journalFsync,
+                groupCommitDelay);
+        this.batchSize = batchSize;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+
+        this.flushTimer = Timer.builder("cart.store.flush")
+                               .register(meterRegistry);
+        this.flushedCounter = Counter.builder("cart.store.flushed")
+                                     .description("Carts written to the database")
+                                     .register(meterRegistry);
+        this.flushFailureCounter = Counter.builder("cart.store.flush.failures")
+                                          .register(meterRegistry);
+        Gauge.builder("cart.store.size", this, store -> store.count(entry -> true))
+             .register(meterRegistry);
+        Gauge.builder("cart.store.dirty", this, store -> store.count(entry -> entry.dirty))
+             .register(meterRegistry);
+    }
+
+    /**
+     * Writes the carts left in the journal by a previous run to the database, before the first scheduled flush can
+     * rotate the journal.
+     */
+    @PostConstruct
+    public void recover()
+            throws IOException {
+        if (journal == null) {
+            return;
+        }
+        List<CartSnapshot> pending = new ArrayList<>(journal.readPending());
+        if (!pending.isEmpty()) {
+            LOGGER.atInfo().log(() -> "Recovering %d carts from the cart journal".formatted(pending.size()));
+            write(pending);
+        }
+        journal.clear();
+    }
+
+    @Override
+    public Cart get(long cartId) {
+        return withEntry(cartId, entry -> entry.cart);
+    }
+
+    @Override
+    public CartResponse view(long cartId) {
+        Cart cart = get(cartId);
+        return cart == null ? null : CartResponse.from(cart);
+    }
+
+    @Override
+    public Cart update(long cartId, Consumer<Cart> mutation) {
+        Cart cart = withEntry(cartId, entry -> {
+            Cart updated = entry.cart.copy();
+            mutation.accept(updated);
+            updated.setVersion(entry.cart.getVersion() == null ? 1 : entry.cart.getVersion() + 1);
+            updated.setUpdatedAt(Instant.now());
+            if (journal != null) {
+                journal.append(CartSnapshot.of(updated));
+            }
+            entry.cart = updated;
+            entry.dirty = true;
+            return updated;
+        });
+        if (cart != null && journal != null) {
+            journal.sync();
+        }
+        return cart;
+    }
+
+    @Override
+    public void evict(long cartId) {
+        Shard shard = shardFor(cartId);
+        shard.lock.lock();
+        try {
+            Entry entry = shard.entries.get(cartId);
+            if (entry != null && !entry.dirty) {
+                shard.entries.remove(cartId);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    @Override
+    public void reprice(long cartId, long itemId, Money unitPrice) {
+        Shard shard = shardFor(cartId);
+        shard.lock.lock();
+        try {
+            Entry entry = shard.entries.get(cartId);
+            if (entry == null) {
+                return;
+            }
+            if (!entry.dirty) {
+                shard.entries.remove(cartId);
+                return;
+            }
+            reprice(entry, itemId, unitPrice);
+        } finally {
+            shard.lock.unlock();
+        }
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    @Override
+    public int repriceCached(long itemId, Money unitPrice) {
+        int repriced = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (Entry entry : shard.entries.values()) {
+                    if (holdsAtOtherPrice(entry.cart, itemId, unitPrice)) {
+                        reprice(entry, itemId, unitPrice);
+                        entry.dirty = true;
+                        repriced++;
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        if (repriced > 0 && journal != null) {
+            journal.sync();
+        }
+        return repriced;
+    }
+
+    @Override
+    public void holdingFlushes(Runnable action) {
+        flushLock.lock();
+        try {
+            action.run();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void flush(long cartId) {
+        flushLock.lock();
+        try {
+            Shard shard = shardFor(cartId);
+            CartSnapshot snapshot;
+            shard.lock.lock();
+            try {
+                Entry entry = shard.entries.get(cartId);
+                if (entry == null || !entry.dirty) {
+                    return;
+                }
+                entry.dirty = false;
+                snapshot = CartSnapshot.of(entry.cart);
+            } finally {
+                shard.lock.unlock();
+            }
+            try {
+                write(List.of(snapshot));
+            } catch (RuntimeException e) {
+                markDirty(List.of(snapshot));
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every dirty cart to the database and evicts idle clean ones. When a batch fails, its carts are written
+     * one at a time, so that a single cart that cannot be written does not hold back the others. Only the carts that
+     * still fail stay dirty and are retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval-ms:1000}")
+    public void flushAll() {
+        flushLock.lock();
+        try {
+            if (journal != null) {
+                journal.rotate();
+            }
+            List<CartSnapshot> dirty = collectDirty();
+            for (int from = 0; from < dirty.size(); from += batchSize) {
+                List<CartSnapshot> batch = dirty.subList(from, Math.min(from + batchSize, dirty.size()));
+                flushBatch(batch);
+            }
+            if (journal != null) {
+                journal.sync();
+                journal.discardRotated();
+            }
+        } catch (IOException e) {
+            flushFailureCounter.increment();
+            LOGGER.atError().setCause(e).log(() -> "Could not rotate the cart journal");
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+            throws IOException {
+        flushAll();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Replaces the entry's cart with a copy holding the item at the new price. Runs under the shard lock.
+     */
+    private void reprice(Entry entry, long itemId, Money unitPrice) {
+        Cart repriced = entry.cart.copy();
+        repriced.repriceItem(itemId, unitPrice);
+        repriced.setVersion(entry.cart.getVersion() == null ? 1 : entry.cart.getVersion() + 1);
+        if (journal != null) {
+            journal.append(CartSnapshot.of(repriced));
+        }
+        entry.cart = repriced;
+    }
+
+    private static boolean holdsAtOtherPrice(Cart cart, long itemId, Money unitPrice) {
+        for (CartLine line : cart.getLines()) {
+            if (line.getItem()
+                    .getId() == itemId) {
+                return !line.getUnitPrice()
+                            .equals(unitPrice);
+            }
+        }
+        return false;
+    }
+
+    private void flushBatch(List<CartSnapshot> batch) {
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            LOGGER.atWarn().setCause(e).log(() -> "Could not flush a batch of %d carts".formatted(batch.size()));
+            if (batch.size() == 1) {
+                failed(batch);
+                return;
+            }
+            for (CartSnapshot snapshot : batch) {
+                try {
+                    write(List.of(snapshot));
+                } catch (RuntimeException cartException) {
+                    LOGGER.atError().setCause(cartException).log(() -> "Could not flush cart %d".formatted(
+                            snapshot.cartId()));
+                    failed(List.of(snapshot));
+                }
+            }
+        }
+    }
+
+    private void failed(List<CartSnapshot> snapshots) {
+        flushFailureCounter.increment(snapshots.size());
+        markDirty(snapshots);
+    }
+
+    private void write(List<CartSnapshot> snapshots) {
+        flushTimer.record(() -> writer.write(snapshots));
+        flushedCounter.increment(snapshots.size());
+    }
+
+    private List<CartSnapshot> collectDirty() {
+        List<CartSnapshot> dirty = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                Iterator<Entry> entries = shard.entries.values()
+                                                       .iterator();
+                while (entries.hasNext()) {
+                    Entry entry = entries.next();
+                    if (entry.dirty) {
+                        entry.dirty = false;
+                        dirty.add(CartSnapshot.of(entry.cart));
+                    } else if (now - entry.lastAccessNanos > idleTimeoutNanos) {
+                        entries.remove();
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Marks carts whose write failed as dirty again and, with a journal, records their current state in the active
+     * journal file, because the rotated file holding their earlier records is about to be discarded.
+     */
+    private void markDirty(List<CartSnapshot> snapshots) {
+        for (CartSnapshot snapshot : snapshots) {
+            Shard shard = shardFor(snapshot.cartId());
+            shard.lock.lock();
+            try {
+                Entry entry = shard.entries.get(snapshot.cartId());
+                if (entry != null) {
+                    entry.dirty = true;
+                    if (journal != null) {
+                        journal.append(CartSnapshot.of(entry.cart));
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs the action on the cart's entry under its shard lock, loading the cart first if it is not in memory. The
+     * load runs outside the lock, in its own transaction, so that the cached cart is detached.
+     */
+    private <T> T withEntry(long cartId, Function<Entry, T> action) {
+        Shard shard = shardFor(cartId);
+        shard.lock.lock();
+        try {
+            Entry entry = shard.entries.get(cartId);
+            if (entry != null) {
+                entry.lastAccessNanos = System.nanoTime();
+                return action.apply(entry);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+
+        Cart loaded = loadTransaction.execute(status -> cartRepository.findWithLinesById(cartId)
+                                                                      .map(Cart::copy)
+                                                                      .orElse(null));
+        if (loaded == null) {
+            return null;
+        }
+        shard.lock.lock();
+        try {
+            Entry entry = shard.entries.computeIfAbsent(cartId, id -> new Entry(loaded));
+            entry.lastAccessNanos = System.nanoTime();
+            return action.apply(entry);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private Shard shardFor(long cartId) {
+        return shards[Math.floorMod(Long.hashCode(cartId) * 0x9E3779B9, shards.length)];
+    }
+
+    private int count(Predicate<Entry> predicate) {
+        int count = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (Entry entry : shard.entries.values()) {
+                    if (predicate.test(entry)) {
+                        count++;
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    private static final class Shard {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Entry> entries = new HashMap<>();
+    }
+
+    private static final class Entry {
+
+        Cart cart;
+        boolean dirty;
+        long lastAccessNanos;
+
+        Entry(Cart cart) {
+            this.cart = cart;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.controllers;
+
+
+import com.auth0.jwt.exceptions.*;
+import com.auth0.jwt.interfaces.*;
+import com.example.demo.security.*;
+import org.slf4j.*;
+import org.springframework.http.*;
+import org.springframework.security.core.*;
+import org.springframework.security.core.userdetails.*;
+import org.springframework.web.bind.annotation.*;
+
+
+@RestController
+@RequestMapping("/api/auth")
+public class AuthController {
+
+    private final TokenService tokenService;
+    private final TokenRevocationList revocationList;
+    private final UserDetailsService userDetailsService;
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthController.class);
+
+    public AuthController(TokenService tokenService, TokenRevocationList revocationList,
+            UserDetailsService userDetailsService) {
+        this.tokenService = tokenService;
+        this.revocationList = revocationList;
+        this.userDetailsService = userDetailsService;
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token. The presented refresh token is
+     * revoked, so each one can be used only once. If no new pair can be signed because the signing pool is full, the
+     * revocation is taken back, so that the client can retry the refresh with the same token.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<Void> refresh(
+            @RequestHeader(SecurityConstants.REFRESH_HEADER_STRING) String refreshToken) {
+        LOGGER.atDebug().log(() -> "AuthController.refresh() called");
+        DecodedJWT jwt;
+        try {
+            jwt = tokenService.verify(refreshToken);
+        } catch (JWTVerificationException e) {
+            LOGGER.atInfo().log(() -> "Invalid refresh token: %s".formatted(e.getMessage()));
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!TokenService.isRefreshToken(jwt)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!revocationList.revoke(jwt.getId(), jwt.getExpiresAtAsInstant())) {
+            LOGGER.atWarn().log(() -> "Reuse of refresh token for user %s".formatted(jwt.getSubject()));
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(jwt.getSubject());
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        TokenService.Tokens tokens;
+        try {
+            tokens = tokenService.issue(user);
+        } catch (HashingCapacityExceededException e) {
+            LOGGER.atWarn().log(() -> "Token signing capacity exceeded, rejecting refresh");
+            revocationList.reinstate(jwt.getId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                             .header(SecurityConstants.HEADER_STRING, SecurityConstants.TOKEN_PREFIX + tokens.accessToken())
+                             .header(SecurityConstants.REFRESH_HEADER_STRING, tokens.refreshToken())
+                             .build();
+    }
+
+    /**
+     * Revokes the access token of the request and, if given, the refresh token issued with it.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = SecurityConstants.REFRESH_HEADER_STRING, required = false) String refreshToken,
+            Authentication authentication) {
+        LOGGER.atDebug().log(() -> "AuthController.logout() called");
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.tokenId() != null) {
+            revocationList.revoke(principal.tokenId(), principal.expiresAt());
+        }
+        if (refreshToken != null) {
+            try {
+                DecodedJWT jwt = tokenService.verify(refreshToken);
+                if (TokenService.isRefreshToken(jwt) && jwt.getSubject()
+                                                           .equals(authentication.getName())) {
+                    revocationList.revoke(jwt.getId(), jwt.getExpiresAtAsInstant());
+                }
+            } catch (JWTVerificationException e) {
+                LOGGER.atInfo().log(() -> "Ignoring invalid refresh token on logout");
+            }
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
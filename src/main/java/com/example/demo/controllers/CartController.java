@@ -1,11 +1,15 @@
 package com.example.demo.controllers;
 
+import com.example.demo.cart.*;
 import com.example.demo.model.persistence.*;
 import com.example.demo.model.persistence.repositories.*;
 import com.example.demo.model.requests.*;
+import com.example.demo.model.responses.*;
+import com.example.demo.security.*;
 import java.util.*;
-import java.util.stream.*;
+import java.util.function.*;
 import org.slf4j.*;
+import org.springframework.dao.*;
 import org.springframework.http.*;
 import org.springframework.security.core.*;
 import org.springframework.web.bind.annotation.*;
@@ -14,26 +18,56 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/cart")
 public class CartController {
 
-    private final UserRepository userRepository;
-    private final CartRepository cartRepository;
+    static final int MAX_BATCH_OPERATIONS = 100;
+
+    private final CartIdResolver cartIdResolver;
     private final ItemRepository itemRepository;
+    private final CartStore cartStore;
     private static final Logger LOGGER = LoggerFactory.getLogger(CartController.class);
 
-    public CartController(UserRepository userRepository, CartRepository cartRepository, ItemRepository itemRepository) {
-        this.userRepository = userRepository;
-        this.cartRepository = cartRepository;
+    public CartController(CartIdResolver cartIdResolver, ItemRepository itemRepository, CartStore cartStore) {
+        this.cartIdResolver = cartIdResolver;
         this.itemRepository = itemRepository;
+        this.cartStore = cartStore;
+    }
+
+    /**
+     * Returns the caller's cart with a strong ETag built from the cart version. A request whose
+     * {@code If-None-Match} still matches that version is answered with 304 and no body, so an unchanged cart is
+     * never serialized.
+     */
+    @GetMapping
+    public ResponseEntity<CartResponse> getCart(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            String ifNoneMatch, Authentication authentication) {
+        LOGGER.atDebug().log(() -> "CartController.getCart() called");
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long cartId = cartIdResolver.resolve(authentication);
+        if (cartId == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        CartResponse cart = cartStore.view(cartId);
+        if (cart == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        String eTag = eTag(cart);
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(cacheControl).body(cart);
     }
 
     @PostMapping("/addToCart")
-    public ResponseEntity<Cart> addToCart(@RequestBody ModifyCartRequest request, Authentication authentication) {
+    public ResponseEntity<CartResponse> addToCart(@RequestBody ModifyCartRequest request, Authentication authentication) {
         LOGGER.atDebug().log(() -> "CartController.addToCart() called");
         if (authentication == null) {
             LOGGER.atInfo().log(() -> "No authentication found in request to addToCart");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        User user = userRepository.findByUsername(authentication.getName());
-        if (user == null) {
+        Long cartId = cartIdResolver.resolve(authentication);
+        if (cartId == null) {
             LOGGER.info("User not found in request to addToCart");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -42,33 +76,124 @@ public class CartController {
             LOGGER.info("Item not found in request to addToCart");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        Cart cart = user.getCart();
-        IntStream.range(0, request.getQuantity())
-                 .forEach(i -> cart.addItem(item.get()));
-        cartRepository.save(cart);
-        LOGGER.info("Cart updated with item {} and quantity {}", item.get().getName(), request.getQuantity());
-        return ResponseEntity.ok(cart);
+        ResponseEntity<CartResponse> response = updateCart(cartId, cart -> cart.addItem(item.get(), request.getQuantity()));
+        if (response.getStatusCode() == HttpStatus.OK) {
+            LOGGER.info("Cart updated with item {} and quantity {}", item.get().getName(), request.getQuantity());
+        }
+        return response;
     }
 
     @PostMapping("/removeFromCart")
-    public ResponseEntity<Cart> removeFromCart(@RequestBody ModifyCartRequest request, Authentication authentication) {
+    public ResponseEntity<CartResponse> removeFromCart(@RequestBody ModifyCartRequest request, Authentication authentication) {
         LOGGER.atDebug().log(() -> "CartController.removeFromCart() called");
         if (authentication == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        User user = userRepository.findByUsername(authentication.getName());
-        if (user == null) {
+        Long cartId = cartIdResolver.resolve(authentication);
+        if (cartId == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
         Optional<Item> item = itemRepository.findById(request.getItemId());
         if (item.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        Cart cart = user.getCart();
-        IntStream.range(0, request.getQuantity())
-                 .forEach(i -> cart.removeItem(item.get()));
-        cartRepository.save(cart);
-        return ResponseEntity.ok(cart);
+        return updateCart(cartId, cart -> cart.removeItem(item.get(), request.getQuantity()));
+    }
+
+    /**
+     * Applies a list of add, remove and set-quantity operations to the cart. All referenced items are loaded with
+     * one query and the cart is stored once. Operations on unknown items or with a negative quantity are skipped and
+     * reported in the per-operation results; the others are still applied.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<CartBatchResponse> batch(@RequestBody List<ModifyCartRequest> requests,
+            Authentication authentication) {
+        LOGGER.atDebug().log(() -> "CartController.batch() called");
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_OPERATIONS) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long cartId = cartIdResolver.resolve(authentication);
+        if (cartId == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        Set<Long> itemIds = new HashSet<>();
+        requests.forEach(request -> itemIds.add(request.getItemId()));
+        Map<Long, Item> items = new HashMap<>();
+        itemRepository.findAllById(itemIds)
+                      .forEach(item -> items.put(item.getId(), item));
+
+        List<CartBatchResponse.OperationResult> results = new ArrayList<>(requests.size());
+        ResponseEntity<CartResponse> response = updateCart(cartId, cart -> {
+            results.clear();
+            for (int i = 0; i < requests.size(); i++) {
+                ModifyCartRequest request = requests.get(i);
+                CartOperation operation = request.getOperation() == null ? CartOperation.ADD : request.getOperation();
+                results.add(new CartBatchResponse.OperationResult(i, request.getItemId(), operation,
+                        apply(cart, items.get(request.getItemId()), operation, request.getQuantity())));
+            }
+        });
+        if (response.getBody() == null) {
+            return ResponseEntity.status(response.getStatusCode()).build();
+        }
+        LOGGER.info("Cart updated with {} batched operations", requests.size());
+        return ResponseEntity.ok(new CartBatchResponse(response.getBody(), results));
+    }
+
+    /**
+     * Applies the mutation through the {@link CartStore}, answering 404 for an unknown cart and 409 if the update
+     * keeps conflicting with concurrent updates of the same cart.
+     */
+    private ResponseEntity<CartResponse> updateCart(long cartId, Consumer<Cart> mutation) {
+        Cart cart;
+        try {
+            cart = cartStore.update(cartId, mutation);
+        } catch (OptimisticLockingFailureException e) {
+            LOGGER.atWarn().log(() -> "Cart update gave up after repeated conflicts");
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (cart == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(CartResponse.from(cart));
     }
 
+    private static CartBatchResponse.Status apply(Cart cart, Item item, CartOperation operation, int quantity) {
+        if (item == null) {
+            return CartBatchResponse.Status.ITEM_NOT_FOUND;
+        }
+        if (quantity < 0) {
+            return CartBatchResponse.Status.INVALID_QUANTITY;
+        }
+        switch (operation) {
+            case ADD -> cart.addItem(item, quantity);
+            case REMOVE -> cart.removeItem(item, quantity);
+            case SET_QUANTITY -> cart.setQuantity(item, quantity);
+        }
+        return CartBatchResponse.Status.APPLIED;
+    }
+
+    static String eTag(CartResponse cart) {
+        return "\"" + cart.id() + "-" + cart.version() + "\"";
+    }
+
+    /**
+     * Compares an {@code If-None-Match} header, which may list several tags or be {@code *}, with the current tag.
+     * Weak tags compare by their opaque part, as RFC 9110 asks for this header.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.strip();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
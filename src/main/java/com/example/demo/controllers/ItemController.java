@@ -1,11 +1,15 @@
 package com.example.demo.controllers;
 
 
+import com.example.demo.cart.*;
 import com.example.demo.model.persistence.*;
 import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.requests.*;
 import java.util.*;
 import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
 import org.springframework.http.*;
+import org.springframework.security.core.*;
 import org.springframework.web.bind.annotation.*;
 
 
@@ -14,10 +18,15 @@ import org.springframework.web.bind.annotation.*;
 public class ItemController {
 
     private final ItemRepository itemRepository;
+    private final CartRepricer cartRepricer;
+    private final Set<String> priceAdmins;
     private static final Logger LOGGER = LoggerFactory.getLogger(ItemController.class);
 
-    public ItemController(ItemRepository itemRepository) {
+    public ItemController(ItemRepository itemRepository, CartRepricer cartRepricer,
+            @Value("${item.price-admins:}") List<String> priceAdmins) {
         this.itemRepository = itemRepository;
+        this.cartRepricer = cartRepricer;
+        this.priceAdmins = Set.copyOf(priceAdmins);
     }
 
     @GetMapping
@@ -43,4 +52,30 @@ public class ItemController {
 
     }
 
+    /**
+     * Changes an item's price and carries it into every cart holding the item. Prices are changed only through here,
+     * so that no cart keeps a stale line price, and only by the users listed in {@code item.price-admins}.
+     */
+    @PutMapping("/{id}/price")
+    public ResponseEntity<Item> changePrice(@PathVariable Long id, @RequestBody ChangePriceRequest request,
+            Authentication authentication) {
+        LOGGER.atDebug().log(() -> "ItemController.changePrice() called");
+        if (authentication == null || !priceAdmins.contains(authentication.getName())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                                 .build();
+        }
+        if (request.getPrice() == null || request.getPrice()
+                                                 .compareTo(Money.zero()) < 0) {
+            return ResponseEntity.badRequest()
+                                 .build();
+        }
+        if (cartRepricer.changePrice(id, request.getPrice()) < 0) {
+            return ResponseEntity.notFound()
+                                 .build();
+        }
+        LOGGER.atInfo().log(() -> "User %s changed the price of item %d to %s".formatted(authentication.getName(), id,
+                request.getPrice()));
+        return ResponseEntity.of(itemRepository.findById(id));
+    }
+
 }
@@ -1,26 +1,59 @@
 package com.example.demo.controllers;
 
 
+import com.example.demo.cart.*;
 import com.example.demo.model.persistence.*;
 import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.responses.*;
+import com.example.demo.order.*;
+import com.example.demo.security.*;
+import java.net.*;
+import java.time.*;
 import java.util.*;
 import org.slf4j.*;
 import org.springframework.http.*;
 import org.springframework.security.core.*;
+import org.springframework.transaction.support.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.*;
 
 
 @RestController
 @RequestMapping("/api/order")
 public class OrderController {
 
+    static final int DEFAULT_HISTORY_PAGE_SIZE = 20;
+    static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
+    private final CartIdResolver cartIdResolver;
+    private final CartRepository cartRepository;
     private final OrderRepository orderRepository;
+    private final CartStore cartStore;
+    private final TransactionOperations transactionOperations;
+    private final OrderSubmissionQueue orderSubmissionQueue;
+    private final OrderHistoryReader orderHistoryReader;
+    private final OrderStatsRecorder orderStatsRecorder;
+    private final UserOrderStatsRepository userOrderStatsRepository;
+    private final OrderExporter orderExporter;
     private static final Logger LOGGER = LoggerFactory.getLogger(OrderController.class);
 
-    public OrderController(UserRepository userRepository, OrderRepository orderRepository) {
+    public OrderController(UserRepository userRepository, CartIdResolver cartIdResolver, CartRepository cartRepository,
+            OrderRepository orderRepository, CartStore cartStore, TransactionOperations transactionOperations,
+            OrderSubmissionQueue orderSubmissionQueue, OrderHistoryReader orderHistoryReader,
+            OrderStatsRecorder orderStatsRecorder, UserOrderStatsRepository userOrderStatsRepository,
+            OrderExporter orderExporter) {
         this.userRepository = userRepository;
+        this.cartIdResolver = cartIdResolver;
+        this.cartRepository = cartRepository;
         this.orderRepository = orderRepository;
+        this.cartStore = cartStore;
+        this.transactionOperations = transactionOperations;
+        this.orderSubmissionQueue = orderSubmissionQueue;
+        this.orderHistoryReader = orderHistoryReader;
+        this.orderStatsRecorder = orderStatsRecorder;
+        this.userOrderStatsRepository = userOrderStatsRepository;
+        this.orderExporter = orderExporter;
     }
 
     @PostMapping("/submit")
@@ -29,26 +62,151 @@ public class OrderController {
         if (authentication == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        User user = userRepository.findByUsername(authentication.getName());
-        if (user == null) {
+        Long cartId = cartIdResolver.resolve(authentication);
+        if (cartId == null) {
+            return ResponseEntity.notFound().build();
+        }
+        cartStore.flush(cartId);
+        UserOrder order = transactionOperations.execute(status -> cartRepository.findWithLinesById(cartId)
+                                                                                .map(UserOrder::createFromCart)
+                                                                                .map(this::saveOrder)
+                                                                                .orElse(null));
+        if (order == null) {
             return ResponseEntity.notFound().build();
         }
-        UserOrder order = UserOrder.createFromCart(user.getCart());
-        orderRepository.save(order);
         return ResponseEntity.ok(order);
     }
 
+    /**
+     * Queues an order for the cart's current contents and answers 202 with the order id right away; the order is
+     * written in the background. Poll {@code GET /api/order/{id}/status} for completion. An empty cart is refused
+     * with 400 before anything is queued, and 503 is answered while the queue is full.
+     */
+    @PostMapping("/submit/async")
+    public ResponseEntity<OrderStatusResponse> submitAsync(Authentication authentication) {
+        LOGGER.atDebug().log(() -> "OrderController.submitAsync() called");
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long cartId = cartIdResolver.resolve(authentication);
+        Cart cart = cartId == null ? null : cartStore.get(cartId);
+        if (cart == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (cart.getLines()
+                .isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        long orderId;
+        try {
+            orderId = orderSubmissionQueue.submit(cart);
+        } catch (OrderQueueFullException e) {
+            LOGGER.atWarn().log(() -> "Order queue full, rejecting order submission");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        return ResponseEntity.accepted()
+                             .location(URI.create("/api/order/" + orderId + "/status"))
+                             .body(new OrderStatusResponse(orderId, OrderStatusResponse.Status.QUEUED));
+    }
+
+    @GetMapping("/{id}/status")
+    public ResponseEntity<OrderStatusResponse> getStatus(@PathVariable long id, Authentication authentication) {
+        LOGGER.atDebug().log(() -> "OrderController.getStatus() called");
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long userId = findUserId(authentication);
+        OrderStatusResponse.Status status = userId == null ? null : orderSubmissionQueue.status(id, userId);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new OrderStatusResponse(id, status));
+    }
+
+    /**
+     * Returns the caller's orders newest first, {@code limit} per page (at most {@value #MAX_HISTORY_PAGE_SIZE}). Pass
+     * the returned cursor as {@code before} for the next page; {@code from} and {@code to} optionally limit the
+     * orders to those created in {@code [from, to)}.
+     */
     @GetMapping("/history")
-    public ResponseEntity<List<UserOrder>> getOrdersForUser(Authentication authentication) {
+    public ResponseEntity<OrderHistoryPage> getOrdersForUser(Authentication authentication,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "" + DEFAULT_HISTORY_PAGE_SIZE) int limit,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
         LOGGER.atDebug().log(() -> "OrderController.getOrdersForUser() called");
         if (authentication == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        User user = userRepository.findByUsername(authentication.getName());
-        if (user == null) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long userId = findUserId(authentication);
+        if (userId == null) {
             return ResponseEntity.notFound().build();
         }
 
-        return ResponseEntity.ok(orderRepository.findByUser(user));
+        return ResponseEntity.ok(orderHistoryReader.read(userId, before, from, to, limit));
+    }
+
+    /**
+     * Streams all of the caller's orders, oldest first, as NDJSON (one order per line, the default) or as CSV (one row
+     * per order line). The response is written while the orders are read, so it is not held in memory.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(Authentication authentication,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        LOGGER.atDebug().log(() -> "OrderController.export() called");
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        OrderExporter.Format exportFormat = OrderExporter.Format.of(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long userId = findUserId(authentication);
+        if (userId == null) {
+            return ResponseEntity.notFound().build();
+        }
+        ContentDisposition disposition = ContentDisposition.attachment()
+                                                           .filename("orders." + exportFormat.extension())
+                                                           .build();
+        return ResponseEntity.ok()
+                             .contentType(exportFormat.mediaType())
+                             .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                             .body(out -> orderExporter.export(userId, exportFormat, out));
+    }
+
+    /**
+     * Returns the caller's order count, total spend and last order time, read from their order stats row.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<OrderStatsResponse> getStats(Authentication authentication) {
+        LOGGER.atDebug().log(() -> "OrderController.getStats() called");
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long userId = findUserId(authentication);
+        if (userId == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(userOrderStatsRepository.findById(userId)
+                                                         .map(OrderStatsResponse::from)
+                                                         .orElse(OrderStatsResponse.empty()));
+    }
+
+    private UserOrder saveOrder(UserOrder order) {
+        UserOrder saved = orderRepository.save(order);
+        orderStatsRecorder.record(saved.getUser()
+                                       .getId(), saved.getTotal(), saved.getCreatedAt());
+        return saved;
+    }
+
+    private Long findUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.userId() != null) {
+            return principal.userId();
+        }
+        User user = userRepository.findByUsername(authentication.getName());
+        return user == null ? null : user.getId();
     }
 }
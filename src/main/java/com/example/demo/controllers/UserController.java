@@ -4,9 +4,10 @@ package com.example.demo.controllers;
 import com.example.demo.model.persistence.*;
 import com.example.demo.model.persistence.repositories.*;
 import com.example.demo.model.requests.*;
+import com.example.demo.security.*;
 import org.slf4j.*;
 import org.springframework.http.*;
-import org.springframework.security.crypto.bcrypt.*;
+import org.springframework.security.crypto.password.*;
 import org.springframework.web.bind.annotation.*;
 
 
@@ -16,13 +17,16 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
     private static final Logger LOGGER = LoggerFactory.getLogger(UserController.class);
 
-    public UserController(UserRepository userRepository, CartRepository cartRepository, BCryptPasswordEncoder bCryptPasswordEncoder) {
+    public UserController(UserRepository userRepository, CartRepository cartRepository,
+            PasswordEncoder passwordEncoder, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
         this.cartRepository = cartRepository;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.passwordEncoder = passwordEncoder;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @GetMapping("/id/{id}")
@@ -49,7 +53,13 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                                  .build();
         }
-        user.setPassword(bCryptPasswordEncoder.encode(createUserRequest.getPassword()));
+        try {
+            user.setPassword(passwordEncoder.encode(createUserRequest.getPassword()));
+        } catch (HashingCapacityExceededException e) {
+            LOGGER.atWarn().log(() -> "Password hashing capacity exceeded, rejecting user creation");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                 .build();
+        }
 
         try {
             user = userRepository.save(user);
@@ -70,6 +80,7 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                                  .build();
         }
+        userDetailsCache.invalidate(user.getUsername());
         return ResponseEntity.status(HttpStatus.CREATED)
                              .body(user);
     }
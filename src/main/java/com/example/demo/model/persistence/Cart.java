@@ -1,19 +1,28 @@
 package com.example.demo.model.persistence;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.ManyToMany;
+import jakarta.persistence.MapKey;
+import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+
+import org.hibernate.annotations.OptimisticLock;
 
 @Entity
 @Table(name = "carts")
@@ -25,10 +34,19 @@ public class Cart {
 	@Column
 	private Long id;
 	
-	@ManyToMany
-	@JsonProperty
-	@Column
-    private List<Item> items;
+	@OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
+	@MapKey(name = "item")
+	@OptimisticLock(excluded = false)
+	@JsonIgnore
+	private Map<Item, CartLine> lines = new LinkedHashMap<>();
+
+	/**
+	 * Lines dropped since the cart was loaded. Adding the item again brings its line back instead of creating a new
+	 * one, because Hibernate would insert the new row before deleting the old one and break the unique constraint.
+	 */
+	@Transient
+	@JsonIgnore
+	private final Map<Item, CartLine> removedLines = new HashMap<>();
 	
 	@OneToOne(mappedBy = "cart")
 	@JsonProperty
@@ -36,16 +54,44 @@ public class Cart {
 	
 	@Column
 	@JsonProperty
-	private BigDecimal total;
+	private Money total;
+
+	@Version
+	@JsonIgnore
+	private Long version;
+
+	@Column(name = "updated_at")
+	@JsonIgnore
+	private Instant updatedAt;
 	
-	public BigDecimal getTotal() {
+	public Money getTotal() {
 		return total;
 	}
 
-	public void setTotal(BigDecimal total) {
+	public void setTotal(Money total) {
 		this.total = total;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	/**
+	 * When the cart's contents last changed, set by the cart store. The abandoned-cart sweeper clears carts left
+	 * untouched for too long.
+	 */
+	public Instant getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(Instant updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
 	public User getUser() {
 		return user;
 	}
@@ -62,36 +108,114 @@ public class Cart {
 		this.id = id;
 	}
 
-	public List<Item> getItems() {
-		return items;
+	/**
+	 * Returns a detached deep copy of the cart and its lines. Items and the user are shared, not copied.
+	 */
+	public Cart copy() {
+		Cart copy = new Cart();
+		copy.id = id;
+		copy.user = user;
+		copy.total = total;
+		copy.version = version;
+		copy.updatedAt = updatedAt;
+		lines.values()
+				.forEach(line -> copy.lines.put(line.getItem(), line.copyFor(copy)));
+		return copy;
 	}
 
-	public void setItems(List<Item> items) {
-		this.items = items;
+	@JsonProperty("lines")
+	public Collection<CartLine> getLines() {
+		return lines.values();
 	}
-	
+
+	/**
+	 * Returns how many units of the item are in the cart.
+	 */
+	public int getQuantity(Item item) {
+		CartLine line = lines.get(item);
+		return line == null ? 0 : line.getQuantity();
+	}
+
+	@JsonProperty
+	public int getItemCount() {
+		return lines.values()
+				.stream()
+				.mapToInt(CartLine::getQuantity)
+				.sum();
+	}
+
 	public void addItem(Item item) {
-		if(items == null) {
-			items = new ArrayList<>();
+		addItem(item, 1);
+	}
+
+	/**
+	 * Adds units of the item, creating its line on first use. Further additions only change the line's quantity.
+	 */
+	public void addItem(Item item, int quantity) {
+		if (quantity <= 0) {
+			return;
 		}
-		items.add(item);
+		CartLine line = lines.computeIfAbsent(item, key -> {
+			CartLine removed = removedLines.remove(key);
+			if (removed == null) {
+				return new CartLine(this, key);
+			}
+			removed.setUnitPrice(key.getPrice());
+			return removed;
+		});
+		line.setQuantity(line.getQuantity() + quantity);
 		if(total == null) {
-			total = BigDecimal.ZERO;
+			total = Money.zero();
 		}
-		total = total.add(item.getPrice());
+		total = total.plus(line.getUnitPrice().times(quantity));
 	}
-	
-	public void removeItem(Item item) {
-		if(items == null) {
-			items = new ArrayList<>();
+
+	/**
+	 * Sets the item's quantity outright. A quantity of zero removes the line.
+	 */
+	public void setQuantity(Item item, int quantity) {
+		int current = getQuantity(item);
+		if (quantity > current) {
+			addItem(item, quantity - current);
+		} else if (quantity < current) {
+			removeItem(item, current - quantity);
 		}
+	}
+
+	public void removeItem(Item item) {
+		removeItem(item, 1);
+	}
 
+	/**
+	 * Removes up to {@code quantity} units of the item. The line is dropped once its quantity reaches zero.
+	 */
+	public void removeItem(Item item, int quantity) {
 		if(total == null) {
-			total = BigDecimal.ZERO;
+			total = Money.zero();
+		}
+		CartLine line = lines.get(item);
+		if (line == null || quantity <= 0) {
+			return;
 		}
+		int removed = Math.min(quantity, line.getQuantity());
+		line.setQuantity(line.getQuantity() - removed);
+		total = total.minus(line.getUnitPrice().times(removed));
+		if (line.getQuantity() == 0) {
+			removedLines.put(item, lines.remove(item));
+		}
+	}
 
-		if (items.remove(item)) {
-			total = total.subtract(item.getPrice());
+	/**
+	 * Sets the unit price of the item's line, if there is one, and adjusts the total to match.
+	 */
+	public void repriceItem(long itemId, Money unitPrice) {
+		for (CartLine line : lines.values()) {
+			if (line.getItem()
+					.getId() == itemId) {
+				total = total.minus(line.getLineTotal())
+						.plus(unitPrice.times(line.getQuantity()));
+				line.setUnitPrice(unitPrice);
+			}
 		}
 	}
 }
@@ -0,0 +1,100 @@
+package com.example.demo.model.persistence;
+
+
+import com.fasterxml.jackson.annotation.*;
+import jakarta.persistence.*;
+
+
+/**
+ * One row per distinct item in a cart. The unit price is captured when the item is first added, so the cart total
+ * can be kept without reading items. When an item is repriced, {@code CartRepricer} updates its lines and the
+ * affected totals in bulk.
+ * <p>
+ * Both the line and its cart are versioned. Adding or dropping a line bumps the cart's version and a quantity change
+ * bumps the line's, so either kind of concurrent change fails the slower writer instead of being lost. Two writers
+ * adding the same item at once can instead run into the unique constraint on {@code (cart_id, item_id)}, which
+ * {@code CartUpdateExecutor} retries like a version conflict.
+ */
+@Entity
+@Table(name = "cart_lines", uniqueConstraints = @UniqueConstraint(name = CartLine.CART_ITEM_CONSTRAINT,
+        columnNames = {"cart_id", "item_id"}))
+public class CartLine {
+
+    public static final String CART_ITEM_CONSTRAINT = "uk_cart_lines_cart_item";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "cart_id", nullable = false)
+    @JsonIgnore
+    private Cart cart;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "item_id", nullable = false)
+    @JsonProperty
+    private Item item;
+
+    @Column(nullable = false)
+    @JsonProperty
+    private int quantity;
+
+    @Column(name = "unit_price", nullable = false)
+    @JsonProperty
+    private Money unitPrice;
+
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    protected CartLine() {
+    }
+
+    CartLine(Cart cart, Item item) {
+        this.cart = cart;
+        this.item = item;
+        this.unitPrice = item.getPrice();
+    }
+
+    CartLine copyFor(Cart cart) {
+        CartLine copy = new CartLine(cart, item);
+        copy.quantity = quantity;
+        copy.unitPrice = unitPrice;
+        return copy;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Cart getCart() {
+        return cart;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Money getUnitPrice() {
+        return unitPrice;
+    }
+
+    void setUnitPrice(Money unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
+    @JsonProperty
+    public Money getLineTotal() {
+        return unitPrice.times(quantity);
+    }
+}
@@ -4,8 +4,6 @@ package com.example.demo.model.persistence;
 import com.fasterxml.jackson.annotation.*;
 import jakarta.persistence.*;
 
-import java.math.*;
-
 
 @Entity
 @Table(name = "items")
@@ -22,7 +20,7 @@ public class Item {
 
     @Column(nullable = false)
     @JsonProperty
-    private BigDecimal price;
+    private Money price;
 
     @Column(nullable = false)
     @JsonProperty
@@ -69,11 +67,11 @@ public class Item {
         this.name = name;
     }
 
-    public BigDecimal getPrice() {
+    public Money getPrice() {
         return price;
     }
 
-    public void setPrice(BigDecimal price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
 
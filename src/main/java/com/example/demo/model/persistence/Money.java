@@ -0,0 +1,118 @@
+package com.example.demo.model.persistence;
+
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.annotation.*;
+import java.io.*;
+import java.math.*;
+import java.util.*;
+
+
+/**
+ * Monetary amount held as a count of minor units (cents for USD) of an ISO 4217 currency. Arithmetic is plain
+ * {@code long} arithmetic, and it throws {@link ArithmeticException} on overflow instead of wrapping.
+ * <p>
+ * In JSON an amount is a plain decimal number in major units, for example {@code 2.99}. The same applies to the
+ * database, through {@link MoneyConverter}. Both use {@link #DEFAULT_CURRENCY}.
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public record Money(long minorUnits, Currency currency)
+        implements Comparable<Money> {
+
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+    private static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+        if (currency.getDefaultFractionDigits() < 0) {
+            throw new IllegalArgumentException("Currency " + currency + " has no minor unit");
+        }
+    }
+
+    public static Money zero() {
+        return ZERO;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits, DEFAULT_CURRENCY);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_CURRENCY);
+    }
+
+    /**
+     * Converts a decimal amount in major units, rounding half-even to the currency's minor unit.
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        long minorUnits = amount.setScale(currency.getDefaultFractionDigits(), RoundingMode.HALF_EVEN)
+                                .unscaledValue()
+                                .longValueExact();
+        return new Money(minorUnits, currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return currency.getCurrencyCode() + " " + toBigDecimal().toPlainString();
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: %s and %s".formatted(currency, other.currency));
+        }
+    }
+
+    static class Serializer
+            extends JsonSerializer<Money> {
+
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializerProvider serializers)
+                throws IOException {
+            generator.writeNumber(value.toBigDecimal());
+        }
+    }
+
+    static class Deserializer
+            extends JsonDeserializer<Money> {
+
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                return Money.of(new BigDecimal(parser.getText()));
+            }
+            return Money.of(parser.getDecimalValue());
+        }
+    }
+}
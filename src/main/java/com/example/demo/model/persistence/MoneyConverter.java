@@ -0,0 +1,32 @@
+package com.example.demo.model.persistence;
+
+
+import jakarta.persistence.*;
+import java.math.*;
+
+
+/**
+ * Stores {@link Money} in a decimal column in major units of {@link Money#DEFAULT_CURRENCY}, so the schema and
+ * seed data are the same as for a plain {@link BigDecimal} price.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter
+        implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money money) {
+        if (money == null) {
+            return null;
+        }
+        if (!Money.DEFAULT_CURRENCY.equals(money.currency())) {
+            throw new IllegalArgumentException("Only %s amounts can be stored, got %s".formatted(
+                    Money.DEFAULT_CURRENCY, money));
+        }
+        return money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return amount == null ? null : Money.of(amount);
+    }
+}
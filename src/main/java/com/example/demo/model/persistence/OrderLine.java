@@ -0,0 +1,86 @@
+package com.example.demo.model.persistence;
+
+
+import com.fasterxml.jackson.annotation.*;
+import jakarta.persistence.*;
+
+
+/**
+ * One row per distinct item in an order, holding the item's id, name and unit price as they were when the order was
+ * submitted. Later edits to the item do not change past orders.
+ * <p>
+ * Ids come from a pooled sequence rather than an identity column, so Hibernate can send the lines of an order as one
+ * JDBC batch.
+ */
+@Entity
+@Table(name = "order_lines", indexes = @Index(columnList = "order_id"))
+public class OrderLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_line_seq")
+    @SequenceGenerator(name = "order_line_seq", sequenceName = "order_line_seq",
+            allocationSize = UserOrder.ID_ALLOCATION_SIZE)
+    @JsonIgnore
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    @JsonIgnore
+    private UserOrder order;
+
+    @Column(name = "item_id", nullable = false)
+    @JsonProperty
+    private long itemId;
+
+    @Column(nullable = false)
+    @JsonProperty
+    private String name;
+
+    @Column(name = "unit_price", nullable = false)
+    @JsonProperty
+    private Money unitPrice;
+
+    @Column(nullable = false)
+    @JsonProperty
+    private int quantity;
+
+    protected OrderLine() {
+    }
+
+    OrderLine(UserOrder order, Item item, Money unitPrice, int quantity) {
+        this.order = order;
+        this.itemId = item.getId();
+        this.name = item.getName();
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UserOrder getOrder() {
+        return order;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Money getUnitPrice() {
+        return unitPrice;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @JsonProperty
+    public Money getLineTotal() {
+        return unitPrice.times(quantity);
+    }
+}
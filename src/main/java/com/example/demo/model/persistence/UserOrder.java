@@ -4,23 +4,34 @@ package com.example.demo.model.persistence;
 import com.fasterxml.jackson.annotation.*;
 import jakarta.persistence.*;
 
-import java.math.*;
+import java.time.*;
 import java.util.*;
 
 
 @Entity
-@Table(name = "user_orders")
+@Table(name = "user_orders", indexes = @Index(columnList = "user_id, id"))
 public class UserOrder {
 
+    /**
+     * Increment of the order and order line id sequences. Ids are handed out in blocks of this size, with the
+     * sequence value as the lowest id of a block, by Hibernate and by the asynchronous order writer alike. For
+     * Hibernate this takes {@code hibernate.id.optimizer.pooled.preferred=pooled-lo}, which both the main and the test
+     * properties set.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_order_seq")
+    @SequenceGenerator(name = "user_order_seq", sequenceName = "user_order_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     @JsonProperty
     @Column
     private Long id;
 
-    @ManyToMany(cascade = {CascadeType.DETACH, CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
     @JsonProperty
-    private List<Item> items;
+    private List<OrderLine> lines = new ArrayList<>();
 
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false, referencedColumnName = "id")
@@ -29,7 +40,11 @@ public class UserOrder {
 
     @JsonProperty
     @Column
-    private BigDecimal total;
+    private Money total;
+
+    @JsonProperty
+    @Column(name = "created_at")
+    private Instant createdAt;
 
     public Long getId() {
         return id;
@@ -39,12 +54,26 @@ public class UserOrder {
         this.id = id;
     }
 
-    public List<Item> getItems() {
-        return items;
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+
+    /**
+     * Adds a line for the item, snapshotting its current name and price.
+     */
+    public void addLine(Item item, int quantity) {
+        addLine(item, item.getPrice(), quantity);
+    }
+
+    private void addLine(Item item, Money unitPrice, int quantity) {
+        lines.add(new OrderLine(this, item, unitPrice, quantity));
     }
 
-    public void setItems(List<Item> items) {
-        this.items = items;
+    @JsonProperty
+    public int getItemCount() {
+        return lines.stream()
+                    .mapToInt(OrderLine::getQuantity)
+                    .sum();
     }
 
     public User getUser() {
@@ -55,20 +84,33 @@ public class UserOrder {
         this.user = user;
     }
 
-    public BigDecimal getTotal() {
+    public Money getTotal() {
         return total;
     }
 
-    public void setTotal(BigDecimal total) {
+    public void setTotal(Money total) {
         this.total = total;
     }
 
+    /**
+     * Creates an order with one line per cart line, at the unit price the cart holds.
+     */
     public static UserOrder createFromCart(Cart cart) {
         UserOrder order = new UserOrder();
-        order.setItems(new ArrayList<>(cart.getItems()));
+        cart.getLines()
+            .forEach(line -> order.addLine(line.getItem(), line.getUnitPrice(), line.getQuantity()));
         order.setTotal(cart.getTotal());
         order.setUser(cart.getUser());
+        order.setCreatedAt(Instant.now());
         return order;
     }
 
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
 }
@@ -0,0 +1,47 @@
+package com.example.demo.model.persistence;
+
+
+import jakarta.persistence.*;
+import java.time.*;
+
+
+/**
+ * Running totals of a user's orders, one row per user who has ordered. The row is updated in the transaction that
+ * writes each order, so reading a customer's order count and spend is a primary key lookup.
+ */
+@Entity
+@Table(name = "user_order_stats")
+public class UserOrderStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "total_spend", nullable = false)
+    private Money totalSpend;
+
+    @Column(name = "last_order_at")
+    private Instant lastOrderAt;
+
+    protected UserOrderStats() {
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public Money getTotalSpend() {
+        return totalSpend;
+    }
+
+    public Instant getLastOrderAt() {
+        return lastOrderAt;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.model.persistence.repositories;
+
+
+import com.example.demo.model.persistence.*;
+
+
+/**
+ * One row of {@link CartRepository#findLineRowsById}: the cart's columns repeated next to one of its lines. The line
+ * columns are {@code null} on the single row returned for an empty cart.
+ */
+public record CartLineRow(Long cartId, Long version, Money total, Long itemId, String itemName, Money unitPrice,
+                          Integer quantity) {}
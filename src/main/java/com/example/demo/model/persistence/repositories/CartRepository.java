@@ -1,6 +1,11 @@
 package com.example.demo.model.persistence.repositories;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.User;
@@ -10,4 +15,15 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
 	Cart findByUser(User user);
+
+	@EntityGraph(attributePaths = {"lines", "lines.item", "user"})
+	Optional<Cart> findWithLinesById(Long id);
+
+	/**
+	 * Reads the cart and its lines as flat rows in one statement, without loading any entity.
+	 */
+	@Query("select new com.example.demo.model.persistence.repositories.CartLineRow("
+			+ "c.id, c.version, c.total, i.id, i.name, l.unitPrice, l.quantity) "
+			+ "from Cart c left join c.lines l left join l.item i where c.id = :id order by l.id")
+	List<CartLineRow> findLineRowsById(Long id);
 }
@@ -0,0 +1,10 @@
+package com.example.demo.model.persistence.repositories;
+
+
+import com.example.demo.model.persistence.*;
+
+
+/**
+ * One order line with the id of its order, as read by {@link OrderRepository#findLineRowsByOrderIds}.
+ */
+public record OrderLineRow(Long orderId, Long itemId, String name, Money unitPrice, Integer quantity) {}
@@ -1,14 +1,54 @@
 package com.example.demo.model.persistence.repositories;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.UserOrder;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OrderRepository extends JpaRepository<UserOrder, Long> {
+	int EXPORT_FETCH_SIZE = 500;
+
 	List<UserOrder> findByUser(User user);
+
+	List<UserOrder> findByUserId(long userId);
+
+	/**
+	 * Returns the user's orders with ids below {@code before}, newest first, optionally limited to orders created in
+	 * {@code [from, to)}. Each page is a range scan of the {@code (user_id, id)} index.
+	 */
+	@Query("select new com.example.demo.model.persistence.repositories.OrderRow(o.id, o.total, o.createdAt) "
+			+ "from UserOrder o where o.user.id = :userId and o.id < :before "
+			+ "and (:from is null or o.createdAt >= :from) and (:to is null or o.createdAt < :to) "
+			+ "order by o.id desc")
+	List<OrderRow> findPageByUserId(long userId, long before, Instant from, Instant to, Limit limit);
+
+	/**
+	 * Returns the lines of all the given orders in one statement, grouped by order.
+	 */
+	@Query("select new com.example.demo.model.persistence.repositories.OrderLineRow("
+			+ "l.order.id, l.itemId, l.name, l.unitPrice, l.quantity) "
+			+ "from OrderLine l where l.order.id in :orderIds order by l.order.id, l.id")
+	List<OrderLineRow> findLineRowsByOrderIds(Collection<Long> orderIds);
+
+	/**
+	 * Streams all of the user's orders with their lines, oldest first, reading {@value #EXPORT_FETCH_SIZE} rows per
+	 * round trip. The stream must be consumed and closed inside a transaction; the orders are read-only and stay in
+	 * the persistence context until it is cleared.
+	 */
+	@Query("select o from UserOrder o left join fetch o.lines where o.user.id = :userId order by o.id")
+	@QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+	Stream<UserOrder> streamWithLinesByUserId(long userId);
 }
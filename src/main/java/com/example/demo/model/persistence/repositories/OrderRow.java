@@ -0,0 +1,11 @@
+package com.example.demo.model.persistence.repositories;
+
+
+import com.example.demo.model.persistence.*;
+import java.time.*;
+
+
+/**
+ * An order's own columns, as read by {@link OrderRepository#findPageByUserId}.
+ */
+public record OrderRow(Long id, Money total, Instant createdAt) {}
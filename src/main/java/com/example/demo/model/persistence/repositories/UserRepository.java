@@ -1,6 +1,7 @@
 package com.example.demo.model.persistence.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.example.demo.model.persistence.User;
 import org.springframework.stereotype.Repository;
@@ -8,4 +9,10 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 	User findByUsername(String username);
+
+	/**
+	 * Looks up only the id of the user's cart, without loading the user or the cart.
+	 */
+	@Query("select u.cart.id from User u where u.username = :username")
+	Long findCartIdByUsername(String username);
 }
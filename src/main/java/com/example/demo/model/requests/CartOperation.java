@@ -0,0 +1,11 @@
+package com.example.demo.model.requests;
+
+
+/**
+ * What a {@link ModifyCartRequest} does to the item's quantity in a batch.
+ */
+public enum CartOperation {
+    ADD,
+    REMOVE,
+    SET_QUANTITY
+}
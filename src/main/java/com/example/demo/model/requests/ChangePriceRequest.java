@@ -0,0 +1,19 @@
+package com.example.demo.model.requests;
+
+import com.example.demo.model.persistence.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ChangePriceRequest {
+	@JsonProperty
+	private Money price;
+
+	public Money getPrice() {
+		return price;
+	}
+
+	public ChangePriceRequest setPrice(Money price) {
+		this.price = price;
+		return this;
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.example.demo.model.requests;
+
+
+import com.fasterxml.jackson.annotation.*;
+
+
+/**
+ * Body of a {@code POST /login}. Unknown properties are ignored.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record LoginRequest(@JsonProperty("username") String username, @JsonProperty("password") String password) {}
@@ -9,6 +9,9 @@ public class ModifyCartRequest {
 	@JsonProperty
 	private int quantity;
 
+	@JsonProperty
+	private CartOperation operation = CartOperation.ADD;
+
 	public long getItemId() {
 		return itemId;
 	}
@@ -25,4 +28,12 @@ public class ModifyCartRequest {
 		this.quantity = quantity;
 	}
 
+	public CartOperation getOperation() {
+		return operation;
+	}
+
+	public void setOperation(CartOperation operation) {
+		this.operation = operation;
+	}
+
 }
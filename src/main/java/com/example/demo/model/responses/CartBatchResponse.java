@@ -0,0 +1,21 @@
+package com.example.demo.model.responses;
+
+
+import com.example.demo.model.requests.*;
+import java.util.*;
+
+
+/**
+ * Result of {@code POST /api/cart/batch}: the cart after all applicable operations, and one result per submitted
+ * operation in request order.
+ */
+public record CartBatchResponse(CartResponse cart, List<OperationResult> results) {
+
+    public record OperationResult(int index, long itemId, CartOperation operation, Status status) {}
+
+    public enum Status {
+        APPLIED,
+        ITEM_NOT_FOUND,
+        INVALID_QUANTITY
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.model.responses;
+
+
+import com.example.demo.model.persistence.*;
+import com.fasterxml.jackson.annotation.*;
+import java.util.*;
+
+
+/**
+ * Cart as returned by the cart endpoints: one line per distinct item, carrying only what a client needs to render
+ * it. The version is kept for the ETag and not serialized.
+ */
+public record CartResponse(long id, @JsonIgnore long version, Money total, int itemCount,
+                           List<CartLineResponse> lines) {
+
+    public static CartResponse from(Cart cart) {
+        List<CartLineResponse> lines = new ArrayList<>(cart.getLines()
+                                                           .size());
+        for (CartLine line : cart.getLines()) {
+            Item item = line.getItem();
+            lines.add(new CartLineResponse(item.getId(), item.getName(), line.getUnitPrice(), line.getQuantity()));
+        }
+        return new CartResponse(cart.getId(), cart.getVersion() == null ? 0 : cart.getVersion(),
+                cart.getTotal() == null ? Money.zero() : cart.getTotal(), cart.getItemCount(), lines);
+    }
+}
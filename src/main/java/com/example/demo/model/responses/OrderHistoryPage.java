@@ -0,0 +1,11 @@
+package com.example.demo.model.responses;
+
+
+import java.util.*;
+
+
+/**
+ * One page of {@code GET /api/order/history}, newest order first. {@code nextCursor} is passed as {@code before} to
+ * fetch the next page, and is {@code null} on the last page.
+ */
+public record OrderHistoryPage(List<OrderResponse> orders, Long nextCursor) {}
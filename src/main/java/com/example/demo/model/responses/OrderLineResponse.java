@@ -0,0 +1,12 @@
+package com.example.demo.model.responses;
+
+
+import com.example.demo.model.persistence.*;
+
+
+public record OrderLineResponse(long itemId, String name, Money unitPrice, int quantity, Money lineTotal) {
+
+    public OrderLineResponse(long itemId, String name, Money unitPrice, int quantity) {
+        this(itemId, name, unitPrice, quantity, unitPrice.times(quantity));
+    }
+}
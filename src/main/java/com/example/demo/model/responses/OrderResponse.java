@@ -0,0 +1,23 @@
+package com.example.demo.model.responses;
+
+
+import com.example.demo.model.persistence.*;
+import java.time.*;
+import java.util.*;
+
+
+/**
+ * Order as listed in the order history: its snapshotted lines, without the user.
+ */
+public record OrderResponse(long id, Money total, Instant createdAt, int itemCount, List<OrderLineResponse> lines) {
+
+    public static OrderResponse from(UserOrder order) {
+        List<OrderLineResponse> lines = new ArrayList<>(order.getLines()
+                                                             .size());
+        for (OrderLine line : order.getLines()) {
+            lines.add(new OrderLineResponse(line.getItemId(), line.getName(), line.getUnitPrice(),
+                    line.getQuantity()));
+        }
+        return new OrderResponse(order.getId(), order.getTotal(), order.getCreatedAt(), order.getItemCount(), lines);
+    }
+}
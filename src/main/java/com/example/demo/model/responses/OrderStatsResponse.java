@@ -0,0 +1,23 @@
+package com.example.demo.model.responses;
+
+
+import com.example.demo.model.persistence.*;
+import java.time.*;
+
+
+/**
+ * A user's lifetime order count and spend, as returned by {@code GET /api/order/stats}. Users who have not ordered
+ * get zeros and no last order time.
+ */
+public record OrderStatsResponse(long orderCount, Money totalSpend, Instant lastOrderAt) {
+
+    private static final OrderStatsResponse EMPTY = new OrderStatsResponse(0, Money.zero(), null);
+
+    public static OrderStatsResponse empty() {
+        return EMPTY;
+    }
+
+    public static OrderStatsResponse from(UserOrderStats stats) {
+        return new OrderStatsResponse(stats.getOrderCount(), stats.getTotalSpend(), stats.getLastOrderAt());
+    }
+}
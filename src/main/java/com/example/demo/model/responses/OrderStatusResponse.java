@@ -0,0 +1,14 @@
+package com.example.demo.model.responses;
+
+
+/**
+ * Progress of an order submitted with {@code POST /api/order/submit/async}.
+ */
+public record OrderStatusResponse(long orderId, Status status) {
+
+    public enum Status {
+        QUEUED,
+        COMPLETED,
+        FAILED
+    }
+}
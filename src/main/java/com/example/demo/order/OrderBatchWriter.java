@@ -0,0 +1,60 @@
+package com.example.demo.order;
+
+
+import com.example.demo.model.persistence.*;
+import java.sql.*;
+import java.util.*;
+import org.hibernate.dialect.sequence.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+
+/**
+ * Writes pending orders with two JDBC batches in one transaction, one for the orders and one for their lines, and
+ * adds them to their users' order stats in the same transaction.
+ */
+class OrderBatchWriter {
+
+    private static final String INSERT_ORDER =
+            "insert into user_orders (id, user_id, total, created_at) values (?, ?, ?, ?)";
+    private static final String INSERT_LINE =
+            "insert into order_lines (id, order_id, item_id, name, unit_price, quantity) values (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcOperations jdbcOperations;
+    private final TransactionTemplate transactionTemplate;
+    private final SequenceBlockAllocator lineIds;
+    private final OrderStatsRecorder statsRecorder;
+
+    OrderBatchWriter(JdbcOperations jdbcOperations, PlatformTransactionManager transactionManager,
+            SequenceSupport sequenceSupport, OrderStatsRecorder statsRecorder) {
+        this.jdbcOperations = jdbcOperations;
+        this.statsRecorder = statsRecorder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lineIds = new SequenceBlockAllocator(jdbcOperations, sequenceSupport, "order_line_seq",
+                UserOrder.ID_ALLOCATION_SIZE);
+    }
+
+    void write(List<PendingOrder> orders) {
+        List<Object[]> orderRows = new ArrayList<>(orders.size());
+        List<Object[]> lineRows = new ArrayList<>();
+        for (PendingOrder order : orders) {
+            orderRows.add(new Object[]{order.orderId(), order.userId(), order.total()
+                                                                             .toBigDecimal(),
+                    Timestamp.from(order.createdAt())});
+            for (PendingOrder.Line line : order.lines()) {
+                lineRows.add(new Object[]{lineIds.next(), order.orderId(), line.itemId(), line.name(),
+                        line.unitPrice()
+                            .toBigDecimal(), line.quantity()});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcOperations.batchUpdate(INSERT_ORDER, orderRows);
+            if (!lineRows.isEmpty()) {
+                jdbcOperations.batchUpdate(INSERT_LINE, lineRows);
+            }
+            statsRecorder.record(orders);
+        });
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.demo.order;
+
+
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.responses.*;
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.util.*;
+import com.fasterxml.jackson.databind.*;
+import jakarta.persistence.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.stream.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.http.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.support.*;
+
+
+/**
+ * Writes a user's whole order history to a stream while it is read from the database, so memory use does not grow
+ * with the number of orders. Orders are streamed from {@link OrderRepository#streamWithLinesByUserId(long)} in a
+ * read-only transaction; every {@code order.export.clear-interval} orders the output is flushed and the persistence
+ * context cleared.
+ */
+@Component
+public class OrderExporter {
+
+    private static final String CSV_HEADER =
+            "order_id,created_at,order_total,item_id,item_name,unit_price,quantity,line_total";
+
+    private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readTransaction;
+    private final ObjectWriter jsonWriter;
+    private final int clearInterval;
+
+    public OrderExporter(OrderRepository orderRepository, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+            @Value("${order.export.clear-interval:" + OrderRepository.EXPORT_FETCH_SIZE + "}") int clearInterval) {
+        this.orderRepository = orderRepository;
+        this.entityManager = entityManager;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.jsonWriter = objectMapper.writer()
+                                      .with(new MinimalPrettyPrinter(""))
+                                      .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                                      .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.clearInterval = clearInterval;
+    }
+
+    /**
+     * Writes all of the user's orders, oldest first, in the given format. The output stream is not closed.
+     */
+    public void export(long userId, Format format, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try {
+            readTransaction.executeWithoutResult(status -> {
+                try (Stream<UserOrder> orders = orderRepository.streamWithLinesByUserId(userId)) {
+                    int written = 0;
+                    for (Iterator<UserOrder> it = orders.iterator(); it.hasNext(); ) {
+                        OrderResponse order = OrderResponse.from(it.next());
+                        if (format == Format.CSV) {
+                            writeCsv(writer, order);
+                        } else {
+                            jsonWriter.writeValue(writer, order);
+                            writer.write('\n');
+                        }
+                        if (++written % clearInterval == 0) {
+                            writer.flush();
+                            entityManager.clear();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes one row per order line, repeating the order's columns; an order without lines gets one row with empty
+     * line columns.
+     */
+    private static void writeCsv(Writer writer, OrderResponse order)
+            throws IOException {
+        String orderColumns = order.id() + "," + (order.createdAt() == null ? "" : order.createdAt()) + ","
+                + amount(order.total());
+        if (order.lines()
+                 .isEmpty()) {
+            writer.write(orderColumns + ",,,,,\n");
+            return;
+        }
+        for (OrderLineResponse line : order.lines()) {
+            writer.write(orderColumns + "," + line.itemId() + "," + csvField(line.name()) + ","
+                    + amount(line.unitPrice()) + "," + line.quantity() + "," + amount(line.lineTotal()) + "\n");
+        }
+    }
+
+    private static String amount(Money money) {
+        return money == null ? "" : money.toBigDecimal()
+                                         .toPlainString();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * Returns the format with the given extension, ignoring case, or {@code null} if there is none.
+         */
+        public static Format of(String extension) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(extension)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.order;
+
+
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.responses.*;
+import java.time.*;
+import java.util.*;
+import org.springframework.data.domain.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Reads order history pages as flat responses. A page costs two statements however many orders it holds: one for
+ * the orders of the page and one for all their lines. No entity is loaded, so neither lazy lines nor the user are
+ * fetched order by order.
+ */
+@Component
+public class OrderHistoryReader {
+
+    private final OrderRepository orderRepository;
+
+    public OrderHistoryReader(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * Returns up to {@code limit} of the user's orders with ids below {@code before} (all orders if {@code null}),
+     * newest first, optionally limited to orders created in {@code [from, to)}.
+     */
+    public OrderHistoryPage read(long userId, Long before, Instant from, Instant to, int limit) {
+        List<OrderRow> orders = orderRepository.findPageByUserId(userId, before == null ? Long.MAX_VALUE : before,
+                from, to, Limit.of(limit + 1));
+        Long nextCursor = null;
+        if (orders.size() > limit) {
+            orders = orders.subList(0, limit);
+            nextCursor = orders.getLast()
+                               .id();
+        }
+        if (orders.isEmpty()) {
+            return new OrderHistoryPage(List.of(), null);
+        }
+
+        Map<Long, List<OrderLineResponse>> lines = new HashMap<>();
+        List<Long> orderIds = orders.stream()
+                                    .map(OrderRow::id)
+                                    .toList();
+        for (OrderLineRow row : orderRepository.findLineRowsByOrderIds(orderIds)) {
+            lines.computeIfAbsent(row.orderId(), id -> new ArrayList<>())
+                 .add(new OrderLineResponse(row.itemId(), row.name(), row.unitPrice(), row.quantity()));
+        }
+
+        List<OrderResponse> responses = new ArrayList<>(orders.size());
+        for (OrderRow order : orders) {
+            List<OrderLineResponse> orderLines = lines.getOrDefault(order.id(), List.of());
+            int itemCount = orderLines.stream()
+                                      .mapToInt(OrderLineResponse::quantity)
+                                      .sum();
+            responses.add(new OrderResponse(order.id(), order.total(), order.createdAt(), itemCount, orderLines));
+        }
+        return new OrderHistoryPage(responses, nextCursor);
+    }
+}
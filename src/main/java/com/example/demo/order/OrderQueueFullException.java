@@ -0,0 +1,13 @@
+package com.example.demo.order;
+
+
+/**
+ * Thrown when the {@link OrderSubmissionQueue} has no space left for another order.
+ */
+public class OrderQueueFullException
+        extends RuntimeException {
+
+    public OrderQueueFullException() {
+        super("Order submission queue is full");
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.order;
+
+
+import java.util.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.*;
+import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+
+/**
+ * One-off job that rebuilds {@code user_order_stats} from {@code user_orders}, for orders placed before the stats
+ * were maintained. It runs at startup when {@code order.stats.backfill.enabled} is set and walks the users in
+ * {@code order.stats.backfill.chunk-size} chunks, one transaction and one set-based merge per chunk.
+ * <p>
+ * Each row is recomputed from scratch, so running the job again is harmless. An order committed for a user while
+ * that user's chunk is being merged can be missed, so run it before taking traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "order.stats.backfill.enabled", havingValue = "true")
+public class OrderStatsBackfill
+        implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderStatsBackfill.class);
+
+    private static final String SELECT_USERS = """
+            select id from users
+            where id > :after
+            order by id
+            limit :limit""";
+    private static final String MERGE_STATS = """
+            merge into user_order_stats s
+            using (select user_id, count(*) order_count, sum(total) total_spend, max(created_at) last_order_at
+                   from user_orders where user_id in (:ids) group by user_id) o
+            on s.user_id = o.user_id
+            when matched then update set order_count = o.order_count, total_spend = o.total_spend,
+                last_order_at = o.last_order_at
+            when not matched then insert (user_id, order_count, total_spend, last_order_at)
+                values (o.user_id, o.order_count, o.total_spend, o.last_order_at)""";
+
+    private final NamedParameterJdbcOperations jdbcOperations;
+    private final TransactionOperations transactionOperations;
+    private final int chunkSize;
+
+    public OrderStatsBackfill(NamedParameterJdbcOperations jdbcOperations,
+            TransactionOperations transactionOperations,
+            @Value("${order.stats.backfill.chunk-size:500}") int chunkSize) {
+        this.jdbcOperations = jdbcOperations;
+        this.transactionOperations = transactionOperations;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfill();
+    }
+
+    /**
+     * Rebuilds the stats of every user who has ordered.
+     *
+     * @return the number of stats rows written
+     */
+    public int backfill() {
+        int rows = 0;
+        long after = 0;
+        while (true) {
+            List<Long> ids = jdbcOperations.queryForList(SELECT_USERS, Map.of("after", after, "limit", chunkSize),
+                    Long.class);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer merged = transactionOperations.execute(
+                    status -> jdbcOperations.update(MERGE_STATS, Map.of("ids", ids)));
+            rows += merged == null ? 0 : merged;
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            after = ids.getLast();
+        }
+        int written = rows;
+        LOGGER.atInfo().log(() -> "Backfilled order stats of %d users".formatted(written));
+        return rows;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.order;
+
+
+import com.example.demo.model.persistence.*;
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Adds orders to the {@code user_order_stats} rows of their users. It runs in the caller's transaction, so the stats
+ * change exactly when the orders are committed.
+ * <p>
+ * Each user's row is written by one merge that creates it on the first order and increments it after that. The
+ * user's {@code users} row is locked first, so two orders of the same user merge one after the other, and the second
+ * merge sees the row the first one created instead of inserting it again.
+ */
+@Component
+public class OrderStatsRecorder {
+
+    private static final String LOCK_USER = "select id from users where id = ? for update";
+    private static final String MERGE_STATS = """
+            merge into user_order_stats s
+            using (values (cast(? as bigint), cast(? as bigint), cast(? as numeric(38, 2)), cast(? as timestamp(6))))
+                o (user_id, order_count, total_spend, last_order_at)
+            on s.user_id = o.user_id
+            when matched then update set order_count = s.order_count + o.order_count,
+                total_spend = s.total_spend + o.total_spend,
+                last_order_at = coalesce(greatest(s.last_order_at, o.last_order_at), o.last_order_at,
+                    s.last_order_at)
+            when not matched then insert (user_id, order_count, total_spend, last_order_at)
+                values (o.user_id, o.order_count, o.total_spend, o.last_order_at)""";
+
+    private final JdbcOperations jdbcOperations;
+
+    public OrderStatsRecorder(JdbcOperations jdbcOperations) {
+        this.jdbcOperations = jdbcOperations;
+    }
+
+    public void record(long userId, Money total, Instant createdAt) {
+        jdbcOperations.queryForList(LOCK_USER, Long.class, userId);
+        jdbcOperations.update(MERGE_STATS, userId, 1, total.toBigDecimal(), timestamp(createdAt));
+    }
+
+    /**
+     * Records a batch of orders with one merge per user. Users are locked in id order, so that concurrent batches
+     * wait for each other instead of deadlocking.
+     */
+    void record(List<PendingOrder> orders) {
+        Map<Long, Totals> totals = new TreeMap<>();
+        for (PendingOrder order : orders) {
+            totals.merge(order.userId(), new Totals(1, order.total(), order.createdAt()), Totals::plus);
+        }
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        for (Map.Entry<Long, Totals> entry : totals.entrySet()) {
+            jdbcOperations.queryForList(LOCK_USER, Long.class, entry.getKey());
+            Totals user = entry.getValue();
+            rows.add(new Object[]{entry.getKey(), user.orders(), user.spend()
+                                                                      .toBigDecimal(), timestamp(user.lastOrderAt())});
+        }
+        jdbcOperations.batchUpdate(MERGE_STATS, rows);
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return instant == null ? null : Timestamp.from(instant);
+    }
+
+    private record Totals(int orders, Money spend, Instant lastOrderAt) {
+
+        Totals plus(Totals other) {
+            Instant last = lastOrderAt == null || other.lastOrderAt != null && other.lastOrderAt.isAfter(lastOrderAt)
+                    ? other.lastOrderAt : lastOrderAt;
+            return new Totals(orders + other.orders, spend.plus(other.spend), last);
+        }
+    }
+}
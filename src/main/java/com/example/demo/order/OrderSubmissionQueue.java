@@ -0,0 +1,201 @@
+package com.example.demo.order;
+
+
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.responses.*;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.*;
+import jakarta.persistence.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.hibernate.dialect.sequence.*;
+import org.hibernate.engine.spi.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.*;
+
+
+/**
+ * Accepts orders into a bounded in-process queue and writes them from a single writer thread, up to
+ * {@code order.submit.batch-size} orders per JDBC batch and transaction. Submitting costs a copy of the cart and an
+ * id from a pre-allocated block, so checkout does not wait for a database commit.
+ * <p>
+ * A batch that fails is retried order by order, so one bad order does not fail the others. The queue holds at most
+ * {@code order.submit.queue-capacity} orders; beyond that {@link #submit} throws {@link OrderQueueFullException}.
+ * Queued orders are lost if the process dies; on a normal shutdown the queue is drained first. Failed orders are
+ * reported as such for {@code order.submit.failed-retention}, after which their status is unknown.
+ */
+@Component
+public class OrderSubmissionQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderSubmissionQueue.class);
+
+    private final BlockingQueue<PendingOrder> queue;
+    private final Map<Long, Submission> submissions = new ConcurrentHashMap<>();
+    private final Queue<Submission> failures = new ConcurrentLinkedQueue<>();
+    private final SequenceBlockAllocator orderIds;
+    private final OrderBatchWriter writer;
+    private final JdbcOperations jdbcOperations;
+    private final int batchSize;
+    private final long failedRetentionNanos;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private final Timer batchTimer;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public OrderSubmissionQueue(JdbcOperations jdbcOperations, PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory, OrderStatsRecorder statsRecorder, MeterRegistry meterRegistry,
+            @Value("${order.submit.queue-capacity:10000}") int queueCapacity,
+            @Value("${order.submit.batch-size:200}") int batchSize,
+            @Value("${order.submit.failed-retention:PT1H}") Duration failedRetention) {
+        SequenceSupport sequenceSupport = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                                                              .getJdbcServices()
+                                                              .getDialect()
+                                                              .getSequenceSupport();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.orderIds = new SequenceBlockAllocator(jdbcOperations, sequenceSupport, "user_order_seq",
+                UserOrder.ID_ALLOCATION_SIZE);
+        this.writer = new OrderBatchWriter(jdbcOperations, transactionManager, sequenceSupport, statsRecorder);
+        this.jdbcOperations = jdbcOperations;
+        this.batchSize = batchSize;
+        this.failedRetentionNanos = failedRetention.toNanos();
+        this.writerThread = new Thread(this::drain, "order-writer");
+        this.writerThread.setDaemon(true);
+
+        this.batchTimer = Timer.builder("order.submit.batch")
+                               .description("Time spent writing a batch of queued orders")
+                               .register(meterRegistry);
+        this.writtenCounter = Counter.builder("order.submit.written")
+                                     .register(meterRegistry);
+        this.failedCounter = Counter.builder("order.submit.failed")
+                                    .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("order.submit.rejected")
+                                      .description("Orders refused because the queue was full")
+                                      .register(meterRegistry);
+        Gauge.builder("order.submit.queue.depth", queue, Collection::size)
+             .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * Queues an order for the cart's current contents.
+     *
+     * @return the id the order will be stored with
+     * @throws OrderQueueFullException if the queue is full
+     */
+    public long submit(Cart cart) {
+        PendingOrder order = PendingOrder.of(orderIds.next(), cart);
+        submissions.put(order.orderId(), new Submission(order.orderId(), order.userId(),
+                OrderStatusResponse.Status.QUEUED, 0));
+        if (!queue.offer(order)) {
+            submissions.remove(order.orderId());
+            rejectedCounter.increment();
+            throw new OrderQueueFullException();
+        }
+        return order.orderId();
+    }
+
+    /**
+     * Returns the status of the user's order, or {@code null} if the user has no order with that id. Orders leave
+     * the in-memory bookkeeping once written, after which the database answers.
+     */
+    public OrderStatusResponse.Status status(long orderId, long userId) {
+        Submission submission = submissions.get(orderId);
+        if (submission != null) {
+            return submission.userId() == userId ? submission.status() : null;
+        }
+        Long owner = jdbcOperations.query("select user_id from user_orders where id = ?",
+                rs -> rs.next() ? rs.getLong(1) : null, orderId);
+        return owner != null && owner == userId ? OrderStatusResponse.Status.COMPLETED : null;
+    }
+
+    @PreDestroy
+    public void shutdown()
+            throws InterruptedException {
+        running = false;
+        writerThread.join(Duration.ofSeconds(30));
+    }
+
+    private void drain() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            expireFailures();
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingOrder> batch) {
+        try {
+            batchTimer.record(() -> writer.write(batch));
+            completed(batch);
+        } catch (RuntimeException e) {
+            LOGGER.atWarn().setCause(e).log(() -> "Could not write a batch of %d orders".formatted(batch.size()));
+            if (batch.size() == 1) {
+                failed(batch.getFirst(), e);
+                return;
+            }
+            for (PendingOrder order : batch) {
+                try {
+                    writer.write(List.of(order));
+                    completed(List.of(order));
+                } catch (RuntimeException orderException) {
+                    failed(order, orderException);
+                }
+            }
+        }
+    }
+
+    private void completed(List<PendingOrder> orders) {
+        orders.forEach(order -> submissions.remove(order.orderId()));
+        writtenCounter.increment(orders.size());
+    }
+
+    private void failed(PendingOrder order, RuntimeException e) {
+        Submission failure = new Submission(order.orderId(), order.userId(), OrderStatusResponse.Status.FAILED,
+                System.nanoTime());
+        submissions.put(order.orderId(), failure);
+        failures.add(failure);
+        failedCounter.increment();
+        LOGGER.atError().setCause(e).log(() -> "Could not write order %d".formatted(order.orderId()));
+    }
+
+    /**
+     * Forgets failed orders older than the retention. Failures are queued in the order they happened, so only the
+     * head of the queue needs checking.
+     */
+    private void expireFailures() {
+        long now = System.nanoTime();
+        Submission oldest;
+        while ((oldest = failures.peek()) != null && now - oldest.failedAtNanos() >= failedRetentionNanos) {
+            failures.poll();
+            submissions.remove(oldest.orderId(), oldest);
+        }
+    }
+
+    private record Submission(long orderId, long userId, OrderStatusResponse.Status status, long failedAtNanos) {}
+}
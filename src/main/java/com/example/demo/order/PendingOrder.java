@@ -0,0 +1,28 @@
+package com.example.demo.order;
+
+
+import com.example.demo.model.persistence.*;
+import java.time.*;
+import java.util.*;
+
+
+/**
+ * An order accepted by the {@link OrderSubmissionQueue} and not yet written: the cart's contents at submit time, under
+ * the id the order will be stored with.
+ */
+record PendingOrder(long orderId, long userId, Money total, Instant createdAt, List<Line> lines) {
+
+    record Line(long itemId, String name, Money unitPrice, int quantity) {}
+
+    static PendingOrder of(long orderId, Cart cart) {
+        List<Line> lines = new ArrayList<>(cart.getLines()
+                                               .size());
+        for (CartLine line : cart.getLines()) {
+            Item item = line.getItem();
+            lines.add(new Line(item.getId(), item.getName(), line.getUnitPrice(), line.getQuantity()));
+        }
+        Money total = cart.getTotal() == null ? Money.zero() : cart.getTotal();
+        return new PendingOrder(orderId, cart.getUser()
+                                             .getId(), total, Instant.now(), lines);
+    }
+}
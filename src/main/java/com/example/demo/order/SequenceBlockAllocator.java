@@ -0,0 +1,45 @@
+package com.example.demo.order;
+
+
+import java.util.concurrent.locks.*;
+import org.hibernate.dialect.sequence.*;
+import org.springframework.jdbc.core.*;
+
+
+/**
+ * Hands out ids from a database sequence in blocks, one sequence call per {@code blockSize} ids. The sequence value
+ * is the lowest id of its block, matching Hibernate's {@code pooled-lo} optimizer, so ids from here never collide
+ * with ids Hibernate allocates from the same sequence. The sequence is read with the database dialect's own syntax.
+ * <p>
+ * Callers run on request threads, so the block is guarded by a {@link ReentrantLock} rather than a monitor: a virtual
+ * thread waiting for the sequence call unmounts instead of pinning its carrier.
+ */
+class SequenceBlockAllocator {
+
+    private final JdbcOperations jdbcOperations;
+    private final String nextValueQuery;
+    private final int blockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long limit;
+
+    SequenceBlockAllocator(JdbcOperations jdbcOperations, SequenceSupport sequenceSupport, String sequenceName,
+            int blockSize) {
+        this.jdbcOperations = jdbcOperations;
+        this.nextValueQuery = sequenceSupport.getSequenceNextValString(sequenceName);
+        this.blockSize = blockSize;
+    }
+
+    long next() {
+        lock.lock();
+        try {
+            if (next == limit) {
+                next = jdbcOperations.queryForObject(nextValueQuery, Long.class);
+                limit = next + blockSize;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
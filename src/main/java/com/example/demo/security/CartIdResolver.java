@@ -0,0 +1,31 @@
+package com.example.demo.security;
+
+
+import com.example.demo.model.persistence.repositories.*;
+import org.springframework.security.core.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Resolves the caller's cart id from the cart id claim of the token, falling back to a lookup by username for tokens
+ * issued without the claim.
+ */
+@Component
+public class CartIdResolver {
+
+    private final UserRepository userRepository;
+
+    public CartIdResolver(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Returns the caller's cart id, or {@code null} if the caller has no user.
+     */
+    public Long resolve(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.cartId() != null) {
+            return principal.cartId();
+        }
+        return userRepository.findCartIdByUsername(authentication.getName());
+    }
+}
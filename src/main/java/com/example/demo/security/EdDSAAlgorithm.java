@@ -0,0 +1,91 @@
+package com.example.demo.security;
+
+
+import com.auth0.jwt.algorithms.*;
+import com.auth0.jwt.exceptions.*;
+import com.auth0.jwt.interfaces.*;
+import java.nio.charset.*;
+import java.security.*;
+import java.util.*;
+
+
+/**
+ * Ed25519 signatures ({@code alg: EdDSA}, RFC 8037), which java-jwt does not ship. Backed by the JDK's own Ed25519
+ * provider.
+ */
+class EdDSAAlgorithm
+        extends Algorithm {
+
+    private static final String JCA_NAME = "Ed25519";
+
+    private final PublicKey publicKey;
+    private final PrivateKey privateKey;
+
+    EdDSAAlgorithm(PublicKey publicKey, PrivateKey privateKey) {
+        super("EdDSA", JCA_NAME);
+        if (publicKey == null && privateKey == null) {
+            throw new IllegalArgumentException("Both provided keys cannot be null.");
+        }
+        this.publicKey = publicKey;
+        this.privateKey = privateKey;
+    }
+
+    @Override
+    public void verify(DecodedJWT jwt)
+            throws SignatureVerificationException {
+        if (publicKey == null) {
+            throw new SignatureVerificationException(this, new IllegalStateException("The public key is null."));
+        }
+        try {
+            Signature signature = Signature.getInstance(JCA_NAME);
+            signature.initVerify(publicKey);
+            signature.update(jwt.getHeader()
+                                .getBytes(StandardCharsets.US_ASCII));
+            signature.update((byte) '.');
+            signature.update(jwt.getPayload()
+                                .getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(Base64.getUrlDecoder()
+                                        .decode(jwt.getSignature()))) {
+                throw new SignatureVerificationException(this);
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new SignatureVerificationException(this, e);
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] headerBytes, byte[] payloadBytes)
+            throws SignatureGenerationException {
+        try {
+            Signature signature = initSign();
+            signature.update(headerBytes);
+            signature.update((byte) '.');
+            signature.update(payloadBytes);
+            return signature.sign();
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            throw new SignatureGenerationException(this, e);
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] contentBytes)
+            throws SignatureGenerationException {
+        try {
+            Signature signature = initSign();
+            signature.update(contentBytes);
+            return signature.sign();
+        } catch (GeneralSecurityException | IllegalStateException e) {
+            throw new SignatureGenerationException(this, e);
+        }
+    }
+
+    private Signature initSign()
+            throws GeneralSecurityException {
+        if (privateKey == null) {
+            throw new IllegalStateException("The private key is null.");
+        }
+        Signature signature = Signature.getInstance(JCA_NAME);
+        signature.initSign(privateKey);
+        return signature;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.security;
+
+
+/**
+ * Thrown when the {@link PasswordHashingExecutor} has no free thread and no queue space left.
+ */
+public class HashingCapacityExceededException
+        extends RuntimeException {
+
+    public HashingCapacityExceededException() {
+        super("Password hashing capacity exceeded");
+    }
+}
@@ -1,16 +1,14 @@
 package com.example.demo.security;
 
 
-import static com.auth0.jwt.algorithms.Algorithm.*;
-
-import com.auth0.jwt.*;
-import com.example.demo.model.persistence.*;
+import com.example.demo.model.requests.*;
 import com.fasterxml.jackson.databind.*;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import java.io.*;
 import java.util.*;
 import org.slf4j.*;
+import org.springframework.http.*;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.*;
 import org.springframework.security.web.authentication.*;
@@ -19,11 +17,18 @@ import org.springframework.security.web.authentication.*;
 public class JWTAuthenticationFilter
         extends UsernamePasswordAuthenticationFilter {
 
+    private static final ObjectReader LOGIN_REQUEST_READER = new ObjectMapper().readerFor(LoginRequest.class);
+
     private final AuthenticationManager authenticationManager;
+    private final TokenService tokenService;
+    private final LoginRateLimiter loginRateLimiter;
     private static final Logger LOGGER = LoggerFactory.getLogger(JWTAuthenticationFilter.class);
 
-    public JWTAuthenticationFilter(AuthenticationManager authenticationManager) {
+    public JWTAuthenticationFilter(AuthenticationManager authenticationManager, TokenService tokenService,
+            LoginRateLimiter loginRateLimiter) {
         this.authenticationManager = authenticationManager;
+        this.tokenService = tokenService;
+        this.loginRateLimiter = loginRateLimiter;
     }
 
     @Override
@@ -31,17 +36,36 @@ public class JWTAuthenticationFilter
             HttpServletResponse res)
             throws AuthenticationException {
         try {
-            User credentials = new ObjectMapper()
-                    .readValue(req.getInputStream(), User.class);
+            if (req.getContentLengthLong() > SecurityConstants.MAX_LOGIN_BODY_BYTES) {
+                res.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                return null;
+            }
+            byte[] body = req.getInputStream()
+                             .readNBytes(SecurityConstants.MAX_LOGIN_BODY_BYTES + 1);
+            if (body.length > SecurityConstants.MAX_LOGIN_BODY_BYTES) {
+                res.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                return null;
+            }
+            LoginRequest credentials = LOGIN_REQUEST_READER.readValue(body);
+
+            if (!loginRateLimiter.tryAcquire(credentials.username(), req.getRemoteAddr())) {
+                LOGGER.atWarn().log(() -> "Too many login attempts for user %s".formatted(credentials.username()));
+                res.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                return null;
+            }
 
             return authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
-                            credentials.getUsername(),
-                            credentials.getPassword(),
+                            credentials.username(),
+                            credentials.password(),
                             new ArrayList<>()));
         } catch (IOException e) {
             LOGGER.atError().log(() -> "Could not read user from request");
             throw new RuntimeException(e);
+        } catch (HashingCapacityExceededException e) {
+            LOGGER.atWarn().log(() -> "Password hashing capacity exceeded, rejecting login");
+            res.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return null;
         }
     }
 
@@ -50,12 +74,16 @@ public class JWTAuthenticationFilter
             HttpServletResponse res,
             FilterChain chain,
             Authentication auth) {
-        String token = JWT.create()
-                          .withSubject(
-                                  ((org.springframework.security.core.userdetails.User) auth.getPrincipal()).getUsername())
-                          .withExpiresAt(new Date(System.currentTimeMillis() + SecurityConstants.EXPIRATION_TIME))
-                          .sign(HMAC512(SecurityConstants.SECRET.getBytes()));
-        res.addHeader(SecurityConstants.HEADER_STRING, SecurityConstants.TOKEN_PREFIX + token);
+        TokenService.Tokens tokens;
+        try {
+            tokens = tokenService.issue((org.springframework.security.core.userdetails.User) auth.getPrincipal());
+        } catch (HashingCapacityExceededException e) {
+            LOGGER.atWarn().log(() -> "Token signing capacity exceeded, rejecting login");
+            res.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        res.addHeader(SecurityConstants.HEADER_STRING, SecurityConstants.TOKEN_PREFIX + tokens.accessToken());
+        res.addHeader(SecurityConstants.REFRESH_HEADER_STRING, tokens.refreshToken());
 
         LOGGER.atInfo().log(() -> "Authentication successful for user %s".formatted(auth.getName()));
     }
@@ -1,26 +1,39 @@
 package com.example.demo.security;
 
 
-import com.auth0.jwt.*;
+import com.auth0.jwt.exceptions.*;
+import com.auth0.jwt.interfaces.*;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
+import org.springframework.http.*;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.context.*;
+import org.springframework.security.web.authentication.*;
 import org.springframework.security.web.authentication.www.*;
 import org.springframework.stereotype.*;
 
 import java.io.*;
 import java.util.*;
 
-import static com.auth0.jwt.algorithms.Algorithm.*;
-
 
+/**
+ * Authenticates requests carrying an access token. A token that fails verification, most often because the
+ * short-lived access token expired, is answered with 401, which tells the client to call the refresh endpoint.
+ */
 @Component
 public class JWTAuthenticationVerificationFilter
         extends BasicAuthenticationFilter {
 
-    public JWTAuthenticationVerificationFilter(AuthenticationManager authManager) {
-        super(authManager);
+    private final TokenService tokenService;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenRevocationList revocationList;
+
+    public JWTAuthenticationVerificationFilter(AuthenticationManager authManager, TokenService tokenService,
+            VerifiedTokenCache tokenCache, TokenRevocationList revocationList) {
+        super(authManager, new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED));
+        this.tokenService = tokenService;
+        this.tokenCache = tokenCache;
+        this.revocationList = revocationList;
     }
 
     @Override
@@ -33,7 +46,14 @@ public class JWTAuthenticationVerificationFilter
             return;
         }
 
-        UsernamePasswordAuthenticationToken authentication = getAuthentication(req);
+        UsernamePasswordAuthenticationToken authentication;
+        try {
+            authentication = getAuthentication(req);
+        } catch (JWTVerificationException e) {
+            SecurityContextHolder.clearContext();
+            getAuthenticationEntryPoint().commence(req, res, new BadCredentialsException(e.getMessage(), e));
+            return;
+        }
 
         SecurityContextHolder.getContext()
                              .setAuthentication(authentication);
@@ -43,15 +63,29 @@ public class JWTAuthenticationVerificationFilter
     private UsernamePasswordAuthenticationToken getAuthentication(HttpServletRequest req) {
         String token = req.getHeader(SecurityConstants.HEADER_STRING);
         if (token != null) {
-            String user = JWT.require(HMAC512(SecurityConstants.SECRET.getBytes()))
-                             .build()
-                             .verify(token.replace(SecurityConstants.TOKEN_PREFIX, ""))
-                             .getSubject();
+            DecodedJWT jwt = verify(token.replace(SecurityConstants.TOKEN_PREFIX, ""));
+            if (TokenService.isRefreshToken(jwt) || revocationList.isRevoked(jwt.getId())) {
+                return null;
+            }
+            String user = jwt.getSubject();
             if (user != null) {
-                return new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
+                UserPrincipal principal = new UserPrincipal(jwt.getClaim(SecurityConstants.USER_ID_CLAIM)
+                                                               .asLong(), jwt.getClaim(SecurityConstants.CART_ID_CLAIM)
+                                                                             .asLong(), user, jwt.getId(),
+                        jwt.getExpiresAtAsInstant());
+                return new UsernamePasswordAuthenticationToken(principal, null, new ArrayList<>());
             }
             return null;
         }
         return null;
     }
+
+    private DecodedJWT verify(String token) {
+        DecodedJWT jwt = tokenCache.get(token);
+        if (jwt == null) {
+            jwt = tokenService.verify(token);
+            tokenCache.put(token, jwt);
+        }
+        return jwt;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.demo.security;
+
+
+import java.util.*;
+import org.springframework.boot.context.properties.*;
+
+
+/**
+ * Signing keys for the JWTs, bound from {@code security.jwt.*}. HMAC keys take a {@code secret}; ES256 and EdDSA keys
+ * take base64 DER keys ({@code private-key} as PKCS#8, {@code public-key} as X.509). A key without a private part can
+ * only verify, which is how a retired key is kept around until its tokens have expired.
+ *
+ * @param activeKeyId id of the key new tokens are signed with
+ * @param keys        every key tokens may be verified with
+ */
+@ConfigurationProperties("security.jwt")
+public record JwtKeyRingProperties(String activeKeyId, List<Key> keys) {
+
+    public record Key(String id, String algorithm, String secret, String privateKey, String publicKey) {}
+}
@@ -0,0 +1,112 @@
+package com.example.demo.security;
+
+
+import com.auth0.jwt.*;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.*;
+import com.auth0.jwt.exceptions.*;
+import java.nio.charset.*;
+import java.security.*;
+import java.security.interfaces.*;
+import java.security.spec.*;
+import java.util.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * The set of keys JWTs are signed and verified with. New tokens are signed with the active key and carry its id in
+ * the {@code kid} header; verification picks the key by that id, so keys can be rotated by adding the new key,
+ * switching the active id and removing the old key once its last tokens have expired.
+ * <p>
+ * Supports HS256, HS512, ES256 and EdDSA (Ed25519). Without any configured key the ring falls back to a single HS512
+ * key built from {@link SecurityConstants#SECRET}.
+ */
+@Component
+public class KeyRing {
+
+    public static final String DEFAULT_KEY_ID = "default";
+
+    private final Map<String, SigningKey> keys = new HashMap<>();
+    private final SigningKey activeKey;
+
+    public KeyRing(JwtKeyRingProperties properties) {
+        List<JwtKeyRingProperties.Key> configuredKeys = properties.keys();
+        if (configuredKeys == null || configuredKeys.isEmpty()) {
+            configuredKeys = List.of(new JwtKeyRingProperties.Key(DEFAULT_KEY_ID, "HS512", SecurityConstants.SECRET,
+                    null, null));
+        }
+        for (JwtKeyRingProperties.Key key : configuredKeys) {
+            Algorithm algorithm = createAlgorithm(key);
+            keys.put(key.id(), new SigningKey(key.id(), algorithm, JWT.require(algorithm)
+                                                                      .build(),
+                    key.secret() != null || key.privateKey() != null));
+        }
+
+        String activeKeyId = properties.activeKeyId() != null ? properties.activeKeyId() : configuredKeys.getFirst()
+                                                                                                        .id();
+        activeKey = keys.get(activeKeyId);
+        if (activeKey == null || !activeKey.canSign()) {
+            throw new IllegalStateException("Active key %s is missing or has no private key".formatted(activeKeyId));
+        }
+    }
+
+    public SigningKey activeKey() {
+        return activeKey;
+    }
+
+    /**
+     * Returns the verifier for the given {@code kid}. Tokens issued before key ids were introduced carry none and are
+     * verified with the active key.
+     *
+     * @throws JWTVerificationException if the key id is unknown
+     */
+    public JWTVerifier verifier(String keyId) {
+        if (keyId == null) {
+            return activeKey.verifier();
+        }
+        SigningKey key = keys.get(keyId);
+        if (key == null) {
+            throw new JWTVerificationException("Unknown key id " + keyId);
+        }
+        return key.verifier();
+    }
+
+    static Algorithm createAlgorithm(JwtKeyRingProperties.Key key) {
+        try {
+            return switch (key.algorithm()) {
+                case "HS256" -> Algorithm.HMAC256(key.secret()
+                                                     .getBytes(StandardCharsets.UTF_8));
+                case "HS512" -> Algorithm.HMAC512(key.secret()
+                                                     .getBytes(StandardCharsets.UTF_8));
+                case "ES256" -> {
+                    KeyFactory keyFactory = KeyFactory.getInstance("EC");
+                    yield Algorithm.ECDSA256((ECPublicKey) publicKey(keyFactory, key),
+                            (ECPrivateKey) privateKey(keyFactory, key));
+                }
+                case "EdDSA" -> {
+                    KeyFactory keyFactory = KeyFactory.getInstance("Ed25519");
+                    yield new EdDSAAlgorithm(publicKey(keyFactory, key), privateKey(keyFactory, key));
+                }
+                default -> throw new IllegalArgumentException("Unsupported JWT algorithm: " + key.algorithm());
+            };
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid key material for key " + key.id(), e);
+        }
+    }
+
+    private static PublicKey publicKey(KeyFactory keyFactory, JwtKeyRingProperties.Key key)
+            throws InvalidKeySpecException {
+        return key.publicKey() == null ? null : keyFactory.generatePublic(
+                new X509EncodedKeySpec(Base64.getDecoder()
+                                             .decode(key.publicKey())));
+    }
+
+    private static PrivateKey privateKey(KeyFactory keyFactory, JwtKeyRingProperties.Key key)
+            throws InvalidKeySpecException {
+        return key.privateKey() == null ? null : keyFactory.generatePrivate(
+                new PKCS8EncodedKeySpec(Base64.getDecoder()
+                                              .decode(key.privateKey())));
+    }
+
+    public record SigningKey(String id, Algorithm algorithm, JWTVerifier verifier, boolean canSign) {}
+}
@@ -0,0 +1,53 @@
+package com.example.demo.security;
+
+
+import io.micrometer.core.instrument.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Token-bucket throttle for login attempts, keyed separately by username and by client address. It runs before the
+ * password encoder is touched, so a credential-stuffing burst is turned away without spending any hashing time.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final TokenBucketArray usernameBuckets;
+    private final TokenBucketArray clientBuckets;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public LoginRateLimiter(@Value("${security.login-throttle.buckets:16384}") int buckets,
+            @Value("${security.login-throttle.username.capacity:5}") int usernameCapacity,
+            @Value("${security.login-throttle.username.refill-per-minute:5}") int usernameRefillPerMinute,
+            @Value("${security.login-throttle.client.capacity:50}") int clientCapacity,
+            @Value("${security.login-throttle.client.refill-per-minute:50}") int clientRefillPerMinute,
+            MeterRegistry meterRegistry) {
+        this(new TokenBucketArray(buckets, 64, usernameCapacity, usernameRefillPerMinute, System::nanoTime),
+                new TokenBucketArray(buckets, 64, clientCapacity, clientRefillPerMinute, System::nanoTime),
+                meterRegistry);
+    }
+
+    LoginRateLimiter(TokenBucketArray usernameBuckets, TokenBucketArray clientBuckets, MeterRegistry meterRegistry) {
+        this.usernameBuckets = usernameBuckets;
+        this.clientBuckets = clientBuckets;
+        this.rejectedCounter = Counter.builder("security.login.throttled")
+                                      .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code false} if either the client or the username has exhausted its login attempts
+     */
+    public boolean tryAcquire(String username, String clientAddress) {
+        if (clientAddress != null && !clientBuckets.tryAcquire(clientAddress)) {
+            rejectedCounter.increment();
+            return false;
+        }
+        if (username != null && !usernameBuckets.tryAcquire(username)) {
+            rejectedCounter.increment();
+            return false;
+        }
+        return true;
+    }
+}
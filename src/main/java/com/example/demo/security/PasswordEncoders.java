@@ -0,0 +1,43 @@
+package com.example.demo.security;
+
+
+import java.util.*;
+import org.springframework.security.crypto.argon2.*;
+import org.springframework.security.crypto.bcrypt.*;
+import org.springframework.security.crypto.password.*;
+import org.springframework.security.crypto.scrypt.*;
+
+
+/**
+ * Builds the {@link DelegatingPasswordEncoder} used for user passwords.
+ * <p>
+ * New hashes are written with the {@code {id}} prefix of the configured algorithm. Hashes stored before the prefix
+ * was introduced are plain bcrypt and are still matched by the bcrypt encoder. A stored hash whose algorithm differs
+ * from the configured one, or whose bcrypt cost is lower than the configured strength, reports
+ * {@link PasswordEncoder#upgradeEncoding(String)} and is rewritten on the next successful login.
+ */
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String SCRYPT = "scrypt";
+
+    private PasswordEncoders() {}
+
+    public static PasswordEncoder createDelegatingPasswordEncoder(String idForEncode, int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(ARGON2, Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put(SCRYPT, SCryptPasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalArgumentException("Unsupported password encoder: " + idForEncode);
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+}
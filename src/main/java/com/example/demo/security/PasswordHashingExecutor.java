@@ -0,0 +1,112 @@
+package com.example.demo.security;
+
+
+import io.micrometer.core.instrument.*;
+import jakarta.annotation.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Bounded, core-count-sized pool that runs password hashing off the servlet threads. At most one hash per core runs
+ * at a time and at most {@code queueCapacity} wait; anything beyond that is rejected immediately with a
+ * {@link HashingCapacityExceededException} instead of tying up another Tomcat worker.
+ * <p>
+ * Token signing runs here as well. The pool always uses platform threads, so with
+ * {@code spring.threads.virtual.enabled} the CPU-bound work never occupies the carrier threads that the virtual
+ * request threads are scheduled on.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Timer hashTimer;
+    private final Timer signTimer;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public PasswordHashingExecutor(@Value("${security.hashing.queue-capacity:64}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        this(Runtime.getRuntime()
+                    .availableProcessors(), queueCapacity, meterRegistry);
+    }
+
+    PasswordHashingExecutor(int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("security.password.hash")
+                              .description("Time spent computing a password hash")
+                              .register(meterRegistry);
+        this.signTimer = Timer.builder("security.token.sign")
+                              .description("Time spent signing a token pair")
+                              .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("security.password.hash.rejected")
+                                      .register(meterRegistry);
+        Gauge.builder("security.password.hash.queue.depth", executor, e -> e.getQueue()
+                                                                            .size())
+             .register(meterRegistry);
+        Gauge.builder("security.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+             .register(meterRegistry);
+    }
+
+    /**
+     * Runs the hashing task on the pool and waits for its result.
+     *
+     * @throws HashingCapacityExceededException if the pool and its queue are full
+     */
+    public <T> T execute(Supplier<T> task) {
+        return execute(hashTimer, task);
+    }
+
+    /**
+     * Runs the token signing task on the pool and waits for its result.
+     *
+     * @throws HashingCapacityExceededException if the pool and its queue are full
+     */
+    public <T> T executeSigning(Supplier<T> task) {
+        return execute(signTimer, task);
+    }
+
+    private <T> T execute(Timer timer, Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.record(task));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new HashingCapacityExceededException();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread()
+                  .interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue()
+                       .size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -5,8 +5,15 @@ public abstract class SecurityConstants {
     private SecurityConstants() {}
 
     public static final String SECRET = "oursecretkey";
-    public static final long EXPIRATION_TIME = 864_000_000; // 10 days
+    public static final long EXPIRATION_TIME = 300_000; // 5 minutes
+    public static final long REFRESH_EXPIRATION_TIME = 1_209_600_000; // 14 days
     public static final String TOKEN_PREFIX = "Bearer ";
     public static final String HEADER_STRING = "Authorization";
+    public static final String REFRESH_HEADER_STRING = "Refresh-Token";
+    public static final int MAX_LOGIN_BODY_BYTES = 4096;
     public static final String SIGN_UP_URL = "/api/user/create";
+    public static final String REFRESH_URL = "/api/auth/refresh";
+    public static final String USER_ID_CLAIM = "userId";
+    public static final String CART_ID_CLAIM = "cartId";
+    public static final String TOKEN_TYPE_CLAIM = "tokenType";
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.example.demo.security;
+
+
+import java.util.function.*;
+
+
+/**
+ * Fixed number of token buckets held in two parallel primitive arrays, so memory stays constant no matter how many
+ * distinct keys are seen. Keys are hashed onto a bucket; two keys that collide share a bucket, which can only make
+ * the limit stricter for them. Updates are guarded by a small array of lock stripes rather than one lock per bucket.
+ */
+class TokenBucketArray {
+
+    private static final long SCALE = 1_000_000L;
+
+    private final long[] tokens;
+    private final long[] lastRefillNanos;
+    private final Object[] stripes;
+    private final int bucketMask;
+    private final int stripeMask;
+    private final long capacity;
+    private final long nanosPerToken;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param buckets         number of buckets, rounded up to a power of two
+     * @param stripes         number of lock stripes, rounded up to a power of two
+     * @param capacity        burst size of each bucket
+     * @param refillPerMinute tokens added to each bucket per minute
+     */
+    TokenBucketArray(int buckets, int stripes, int capacity, int refillPerMinute, LongSupplier nanoClock) {
+        int bucketCount = powerOfTwo(buckets);
+        int stripeCount = Math.min(powerOfTwo(stripes), bucketCount);
+        this.tokens = new long[bucketCount];
+        this.lastRefillNanos = new long[bucketCount];
+        this.stripes = new Object[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Object();
+        }
+        this.bucketMask = bucketCount - 1;
+        this.stripeMask = stripeCount - 1;
+        this.capacity = capacity * SCALE;
+        this.nanosPerToken = 60_000_000_000L / refillPerMinute;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes one token from the bucket of the given key.
+     *
+     * @return {@code false} if the bucket is empty
+     */
+    boolean tryAcquire(String key) {
+        int bucket = spread(key.hashCode()) & bucketMask;
+        synchronized (stripes[bucket & stripeMask]) {
+            long now = nanoClock.getAsLong();
+            long available;
+            if (lastRefillNanos[bucket] == 0) {
+                available = capacity;
+            } else {
+                long elapsed = Math.min(now - lastRefillNanos[bucket], nanosPerToken * (capacity / SCALE));
+                elapsed = Math.max(0, elapsed);
+                long refill = elapsed / nanosPerToken * SCALE + elapsed % nanosPerToken * SCALE / nanosPerToken;
+                available = Math.min(capacity, tokens[bucket] + refill);
+            }
+            lastRefillNanos[bucket] = now == 0 ? 1 : now;
+            if (available < SCALE) {
+                tokens[bucket] = available;
+                return false;
+            }
+            tokens[bucket] = available - SCALE;
+            return true;
+        }
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int powerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
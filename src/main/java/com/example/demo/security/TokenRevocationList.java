@@ -0,0 +1,90 @@
+package com.example.demo.security;
+
+
+import io.micrometer.core.instrument.*;
+import java.time.*;
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * In-memory set of revoked token ids ({@code jti}). Lookups first consult a {@link BloomFilter}, so the common case of
+ * a token that was never revoked is answered without touching the exact set. Entries are kept only until the revoked
+ * token would have expired anyway; the bloom filter is rebuilt from the remaining entries when they are purged.
+ * <p>
+ * The list is local to this instance and does not survive a restart.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final int expectedInsertions;
+    private final double falsePositiveProbability;
+    private final Clock clock;
+    private volatile BloomFilter bloomFilter;
+
+    @Autowired
+    public TokenRevocationList(@Value("${security.revocation.expected-insertions:100000}") int expectedInsertions,
+            @Value("${security.revocation.false-positive-probability:0.01}") double falsePositiveProbability,
+            MeterRegistry meterRegistry) {
+        this(expectedInsertions, falsePositiveProbability, meterRegistry, Clock.systemUTC());
+    }
+
+    TokenRevocationList(int expectedInsertions, double falsePositiveProbability, MeterRegistry meterRegistry,
+            Clock clock) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.clock = clock;
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+
+        Gauge.builder("security.token.revoked", revoked, Map::size)
+             .register(meterRegistry);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    /**
+     * Revokes the token until {@code expiresAt}.
+     *
+     * @return {@code false} if the token had already been revoked
+     */
+    public synchronized boolean revoke(String tokenId, Instant expiresAt) {
+        boolean added = revoked.putIfAbsent(tokenId, expiresAt) == null;
+        bloomFilter.put(tokenId);
+        return added;
+    }
+
+    /**
+     * Takes back a revocation made by this request when the request fails for a reason the client did not cause, so
+     * that the token can be presented again. The bloom filter keeps the id, which only costs an exact lookup.
+     */
+    public void reinstate(String tokenId) {
+        revoked.remove(tokenId);
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.purge-interval-ms:60000}")
+    public synchronized void purgeExpired() {
+        Instant now = clock.instant();
+        if (!revoked.values()
+                    .removeIf(expiresAt -> !expiresAt.isAfter(now))) {
+            return;
+        }
+        BloomFilter rebuilt = new BloomFilter(expectedInsertions, falsePositiveProbability);
+        revoked.keySet()
+               .forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+}
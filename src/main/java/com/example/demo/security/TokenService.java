@@ -0,0 +1,84 @@
+package com.example.demo.security;
+
+
+import com.auth0.jwt.*;
+import com.auth0.jwt.interfaces.*;
+import java.util.*;
+import org.springframework.security.core.userdetails.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Issues and verifies the access and refresh tokens. Access tokens are short-lived; refresh tokens are single-use and
+ * are rotated through {@link TokenRevocationList} on every refresh.
+ */
+@Component
+public class TokenService {
+
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+
+    private final KeyRing keyRing;
+    private final PasswordHashingExecutor hashingExecutor;
+
+    public TokenService(KeyRing keyRing, PasswordHashingExecutor hashingExecutor) {
+        this.keyRing = keyRing;
+        this.hashingExecutor = hashingExecutor;
+    }
+
+    /**
+     * Signs a new token pair on the {@link PasswordHashingExecutor}.
+     *
+     * @throws HashingCapacityExceededException if the pool and its queue are full
+     */
+    public Tokens issue(UserDetails user) {
+        return hashingExecutor.executeSigning(() -> createTokens(user));
+    }
+
+    private Tokens createTokens(UserDetails user) {
+        long now = System.currentTimeMillis();
+        KeyRing.SigningKey signingKey = keyRing.activeKey();
+
+        JWTCreator.Builder accessToken = JWT.create()
+                                            .withKeyId(signingKey.id())
+                                            .withSubject(user.getUsername())
+                                            .withJWTId(UUID.randomUUID()
+                                                           .toString())
+                                            .withClaim(SecurityConstants.TOKEN_TYPE_CLAIM, ACCESS_TOKEN)
+                                            .withExpiresAt(new Date(now + SecurityConstants.EXPIRATION_TIME));
+        if (user instanceof UserDetailsImpl userDetails) {
+            accessToken.withClaim(SecurityConstants.USER_ID_CLAIM, userDetails.getUserId())
+                       .withClaim(SecurityConstants.CART_ID_CLAIM, userDetails.getCartId());
+        }
+
+        String refreshToken = JWT.create()
+                                 .withKeyId(signingKey.id())
+                                 .withSubject(user.getUsername())
+                                 .withJWTId(UUID.randomUUID()
+                                                .toString())
+                                 .withClaim(SecurityConstants.TOKEN_TYPE_CLAIM, REFRESH_TOKEN)
+                                 .withExpiresAt(new Date(now + SecurityConstants.REFRESH_EXPIRATION_TIME))
+                                 .sign(signingKey.algorithm());
+
+        return new Tokens(accessToken.sign(signingKey.algorithm()), refreshToken);
+    }
+
+    /**
+     * Verifies the token with the key named by its {@code kid} header.
+     *
+     * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is malformed, expired, signed with an
+     *                                                          unknown key or its signature does not match
+     */
+    public DecodedJWT verify(String token) {
+        DecodedJWT jwt = JWT.decode(token);
+        return keyRing.verifier(jwt.getKeyId())
+                      .verify(jwt);
+    }
+
+    public static boolean isRefreshToken(DecodedJWT jwt) {
+        return REFRESH_TOKEN.equals(jwt.getClaim(SecurityConstants.TOKEN_TYPE_CLAIM)
+                                       .asString());
+    }
+
+    public record Tokens(String accessToken, String refreshToken) {}
+}
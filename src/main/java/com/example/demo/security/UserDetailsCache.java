@@ -0,0 +1,115 @@
+package com.example.demo.security;
+
+
+import io.micrometer.core.instrument.*;
+import java.time.*;
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.security.core.userdetails.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Bounded, TTL-based cache of {@link UserDetails} keyed by username. Callers always receive a copy of the cached
+ * entry, because Spring Security erases the credentials of the principal it returns after a successful login.
+ * <p>
+ * Anything that changes a user's username or password must call {@link #invalidate(String)}.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Duration ttl;
+    private final Clock clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public UserDetailsCache(@Value("${security.user-cache.max-size:10000}") int maxSize,
+            @Value("${security.user-cache.ttl:PT5M}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this(maxSize, ttl, meterRegistry, Clock.systemUTC());
+    }
+
+    UserDetailsCache(int maxSize, Duration ttl, MeterRegistry meterRegistry, Clock clock) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.clock = clock;
+
+        FunctionCounter.builder("security.user.cache.hits", hits, LongAdder::sum)
+                       .register(meterRegistry);
+        FunctionCounter.builder("security.user.cache.misses", misses, LongAdder::sum)
+                       .register(meterRegistry);
+        Gauge.builder("security.user.cache.size", entries, Map::size)
+             .register(meterRegistry);
+        Gauge.builder("security.user.cache.hit.ratio", this, UserDetailsCache::getHitRatio)
+             .register(meterRegistry);
+        Gauge.builder("security.user.cache.ttl", ttl, Duration::toSeconds)
+             .baseUnit("seconds")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Returns a copy of the cached user, or {@code null} if the user is unknown or the entry is older than the TTL.
+     */
+    public UserDetails get(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(clock.instant())) {
+            entries.remove(username, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copyOf(entry.userDetails());
+    }
+
+    public void put(UserDetails userDetails) {
+        if (entries.size() >= maxSize) {
+            Instant now = clock.instant();
+            entries.values()
+                   .removeIf(entry -> entry.isExpired(now));
+            if (entries.size() >= maxSize) {
+                return;
+            }
+        }
+        entries.put(userDetails.getUsername(), new Entry(copyOf(userDetails), clock.instant()
+                                                                                  .plus(ttl)));
+    }
+
+    public void invalidate(String username) {
+        entries.remove(username);
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static UserDetails copyOf(UserDetails userDetails) {
+        if (userDetails instanceof UserDetailsImpl userDetailsImpl) {
+            return userDetailsImpl.withPassword(userDetailsImpl.getPassword());
+        }
+        return User.withUserDetails(userDetails)
+                   .build();
+    }
+
+    private record Entry(UserDetails userDetails, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.security;
+
+
+import java.util.*;
+import org.springframework.security.core.userdetails.*;
+
+
+/**
+ * {@link User} that also carries the ids written into the JWT on successful authentication.
+ */
+public class UserDetailsImpl
+        extends User {
+
+    private final long userId;
+    private final Long cartId;
+
+    public UserDetailsImpl(long userId, Long cartId, String username, String password) {
+        super(username, password, Collections.emptyList());
+        this.userId = userId;
+        this.cartId = cartId;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+
+    public UserDetailsImpl withPassword(String password) {
+        return new UserDetailsImpl(userId, cartId, getUsername(), password);
+    }
+}
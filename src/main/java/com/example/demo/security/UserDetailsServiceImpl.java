@@ -7,26 +7,53 @@ import com.example.demo.model.persistence.repositories.*;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.*;
 
-import java.util.*;
-
 
 @Service
 public class UserDetailsServiceImpl
-        implements UserDetailsService {
+        implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username)
             throws UsernameNotFoundException {
+        UserDetails cached = userDetailsCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
         User user = userRepository.findByUsername(username);
         if (user == null) {
             throw new UsernameNotFoundException(username);
         }
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), Collections.emptyList());
+        Long cartId = user.getCart() == null ? null : user.getCart()
+                                                          .getId();
+        UserDetails userDetails = new UserDetailsImpl(user.getId(), cartId, user.getUsername(), user.getPassword());
+        userDetailsCache.put(userDetails);
+        return userDetails;
+    }
+
+    /**
+     * Called by Spring Security after a successful login whose stored hash uses an outdated algorithm or cost.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername());
+        if (user == null) {
+            throw new UsernameNotFoundException(userDetails.getUsername());
+        }
+        userRepository.save(user.setPassword(newPassword));
+        userDetailsCache.invalidate(user.getUsername());
+        if (userDetails instanceof UserDetailsImpl userDetailsImpl) {
+            return userDetailsImpl.withPassword(newPassword);
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                                                                 .password(newPassword)
+                                                                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.example.demo.security;
+
+
+import com.auth0.jwt.interfaces.*;
+import io.micrometer.core.instrument.*;
+import java.nio.charset.*;
+import java.security.*;
+import java.time.*;
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+
+/**
+ * Bounded cache of tokens whose signature has already been verified, keyed by the SHA-256 digest of the raw token.
+ * Entries are only served until the token's own {@code exp} claim, so a cached token never outlives its validity.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Map<String, DecodedJWT> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Clock clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public VerifiedTokenCache(@Value("${security.token-cache.max-size:10000}") int maxSize,
+            MeterRegistry meterRegistry) {
+        this(maxSize, meterRegistry, Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(int maxSize, MeterRegistry meterRegistry, Clock clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+
+        FunctionCounter.builder("security.token.cache.hits", hits, LongAdder::sum)
+                       .description("Requests whose token was served from the verified-token cache")
+                       .register(meterRegistry);
+        FunctionCounter.builder("security.token.cache.misses", misses, LongAdder::sum)
+                       .description("Requests whose token required a full signature verification")
+                       .register(meterRegistry);
+        Gauge.builder("security.token.cache.size", entries, Map::size)
+             .register(meterRegistry);
+    }
+
+    /**
+     * Returns the previously verified token, or {@code null} if it is unknown or has expired.
+     */
+    public DecodedJWT get(String token) {
+        String key = digest(token);
+        DecodedJWT jwt = entries.get(key);
+        if (jwt == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(jwt)) {
+            entries.remove(key, jwt);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return jwt;
+    }
+
+    /**
+     * Remembers a token that has just passed verification. Tokens without an {@code exp} claim are never cached.
+     */
+    public void put(String token, DecodedJWT jwt) {
+        if (jwt.getExpiresAtAsInstant() == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evictExpired();
+            if (entries.size() >= maxSize) {
+                return;
+            }
+        }
+        entries.put(digest(token), jwt);
+    }
+
+    public void invalidate(String token) {
+        entries.remove(digest(token));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictExpired() {
+        entries.values()
+               .removeIf(this::isExpired);
+    }
+
+    private boolean isExpired(DecodedJWT jwt) {
+        return !jwt.getExpiresAtAsInstant()
+                   .isAfter(clock.instant());
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                                       .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder()
+                         .encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.demo.security;
 
 
+import jakarta.servlet.*;
+import org.springframework.boot.context.properties.*;
 import org.springframework.context.annotation.*;
 import org.springframework.http.*;
 import org.springframework.security.authentication.*;
@@ -14,12 +16,23 @@ import org.springframework.security.web.*;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(JwtKeyRingProperties.class)
 public class WebSecurityConfiguration {
 
     private final AuthenticationConfiguration authenticationConfiguration;
+    private final TokenService tokenService;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenRevocationList revocationList;
+    private final LoginRateLimiter loginRateLimiter;
 
-    public WebSecurityConfiguration(AuthenticationConfiguration authenticationConfiguration) {
+    public WebSecurityConfiguration(AuthenticationConfiguration authenticationConfiguration,
+            TokenService tokenService, VerifiedTokenCache tokenCache, TokenRevocationList revocationList,
+            LoginRateLimiter loginRateLimiter) {
         this.authenticationConfiguration = authenticationConfiguration;
+        this.tokenService = tokenService;
+        this.tokenCache = tokenCache;
+        this.revocationList = revocationList;
+        this.loginRateLimiter = loginRateLimiter;
     }
 
     @Bean
@@ -28,14 +41,21 @@ public class WebSecurityConfiguration {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(registry -> {
+                    // The original request was authorized before a streamed response (such as the order export)
+                    // is written on an async dispatch, which carries no token of its own.
+                    registry.dispatcherTypeMatchers(DispatcherType.ASYNC)
+                            .permitAll();
                     registry.requestMatchers(HttpMethod.POST, SecurityConstants.SIGN_UP_URL)
                             .permitAll();
+                    registry.requestMatchers(HttpMethod.POST, SecurityConstants.REFRESH_URL)
+                            .permitAll();
                     registry.anyRequest()
                             .authenticated();
 
                 })
-                .addFilter(new JWTAuthenticationFilter(authenticationManager()))
-                .addFilter(new JWTAuthenticationVerificationFilter(authenticationManager()))
+                .addFilter(new JWTAuthenticationFilter(authenticationManager(), tokenService, loginRateLimiter))
+                .addFilter(new JWTAuthenticationVerificationFilter(authenticationManager(), tokenService, tokenCache,
+                        revocationList))
                 .sessionManagement(session ->
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
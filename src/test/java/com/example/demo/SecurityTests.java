@@ -2,14 +2,20 @@ package com.example.demo;
 
 
 import com.example.demo.model.persistence.*;
+import com.auth0.jwt.*;
+import com.auth0.jwt.interfaces.*;
 import com.example.demo.model.requests.*;
+import com.example.demo.security.*;
 import kong.unirest.core.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.*;
 import org.junit.jupiter.params.provider.*;
+import org.springframework.beans.factory.annotation.*;
 import org.springframework.boot.test.context.*;
 import org.springframework.boot.test.web.server.*;
 
+import java.util.*;
+
 import static org.assertj.core.api.Assertions.*;
 
 
@@ -20,6 +26,9 @@ class SecurityTests {
     @LocalServerPort
     private int port;
 
+    @Autowired
+    private KeyRing keyRing;
+
     @Test
     void contextLoads() {
         // This test will pass if the application context loads successfully.
@@ -72,7 +81,7 @@ class SecurityTests {
 
     @ParameterizedTest
     @ValueSource(strings = {"/api/item/name/Item1", "/api/item/1", "/api/item", "/api/order/history", "/api/user/id/1",
-                            "/api/user/username"})
+                            "/api/user/username", "/api/order/stats", "/api/order/export"})
     void testUnauthorizedAccessGet(String path) {
         final String baseUrl = HOST + port + path;
 
@@ -84,7 +93,8 @@ class SecurityTests {
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"/api/cart/addToCart", "/api/cart/removeFromCart", "/api/order/submit"})
+    @ValueSource(strings = {"/api/cart/addToCart", "/api/cart/removeFromCart", "/api/order/submit",
+            "/api/order/submit/async"})
     void testUnauthorizedAccessPost(String path) {
         final String baseUrl = HOST + port + path;
 
@@ -115,6 +125,117 @@ class SecurityTests {
                             .getFirst("Authorization")).startsWith("Bearer ");
     }
 
+    @Test
+    void testLoginTokenCarriesUserAndCartIds() {
+        final String baseUrl = HOST + port;
+
+        HttpResponse<User> response1 = createUser(
+                baseUrl, "test7", "test7Password");
+
+        assertThat(response1.getStatus()).isEqualTo(HttpStatus.CREATED);
+
+        HttpResponse<String> response2 = performLogin(baseUrl, "test7", "test7Password");
+
+        assertThat(response2.getStatus()).isEqualTo(HttpStatus.OK);
+        DecodedJWT jwt = JWT.decode(response2.getHeaders()
+                                             .getFirst("Authorization")
+                                             .substring(SecurityConstants.TOKEN_PREFIX.length()));
+        assertThat(jwt.getClaim(SecurityConstants.USER_ID_CLAIM)
+                      .asLong()).isEqualTo(response1.getBody()
+                                                    .getId());
+        assertThat(jwt.getClaim(SecurityConstants.CART_ID_CLAIM)
+                      .asLong()).isNotNull();
+    }
+
+    @Test
+    void testRefreshRotatesTokens() {
+        final String baseUrl = HOST + port;
+
+        HttpResponse<User> response1 = createUser(baseUrl, "test8", "test8Password");
+        assertThat(response1.getStatus()).isEqualTo(HttpStatus.CREATED);
+        HttpResponse<String> login = performLogin(baseUrl, "test8", "test8Password");
+        String refreshToken = login.getHeaders()
+                                   .getFirst(SecurityConstants.REFRESH_HEADER_STRING);
+        assertThat(refreshToken).isNotEmpty();
+
+        HttpResponse<String> refresh1 = performRefresh(baseUrl, refreshToken);
+
+        assertThat(refresh1.getStatus()).isEqualTo(HttpStatus.OK);
+        assertThat(refresh1.getHeaders()
+                           .getFirst("Authorization")).startsWith("Bearer ");
+        assertThat(refresh1.getHeaders()
+                           .getFirst(SecurityConstants.REFRESH_HEADER_STRING)).isNotEqualTo(refreshToken);
+
+        HttpResponse<String> refresh2 = performRefresh(baseUrl, refreshToken);
+
+        assertThat(refresh2.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void testExpiredAccessTokenIsUnauthorized() {
+        final String baseUrl = HOST + port;
+        KeyRing.SigningKey signingKey = keyRing.activeKey();
+        String expired = JWT.create()
+                            .withKeyId(signingKey.id())
+                            .withSubject("test1")
+                            .withClaim(SecurityConstants.TOKEN_TYPE_CLAIM, TokenService.ACCESS_TOKEN)
+                            .withExpiresAt(new Date(System.currentTimeMillis() - 60_000))
+                            .sign(signingKey.algorithm());
+
+        HttpResponse<String> expiredResponse = Unirest.get(baseUrl + "/api/item")
+                                                      .header("Authorization", SecurityConstants.TOKEN_PREFIX + expired)
+                                                      .asString();
+        HttpResponse<String> malformedResponse = Unirest.get(baseUrl + "/api/item")
+                                                        .header("Authorization",
+                                                                SecurityConstants.TOKEN_PREFIX + "not-a-token")
+                                                        .asString();
+
+        assertThat(expiredResponse.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(malformedResponse.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void testRefreshTokenIsNotAnAccessToken() {
+        final String baseUrl = HOST + port;
+
+        HttpResponse<User> response1 = createUser(baseUrl, "test9", "test9Password");
+        assertThat(response1.getStatus()).isEqualTo(HttpStatus.CREATED);
+        HttpResponse<String> login = performLogin(baseUrl, "test9", "test9Password");
+
+        HttpResponse<String> response = Unirest.get(baseUrl + "/api/item")
+                                               .header("Authorization", SecurityConstants.TOKEN_PREFIX
+                                                       + login.getHeaders()
+                                                              .getFirst(SecurityConstants.REFRESH_HEADER_STRING))
+                                               .asString();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void testLogoutRevokesAccessToken() {
+        final String baseUrl = HOST + port;
+
+        HttpResponse<User> response1 = createUser(baseUrl, "test10", "test10Password");
+        assertThat(response1.getStatus()).isEqualTo(HttpStatus.CREATED);
+        HttpResponse<String> login = performLogin(baseUrl, "test10", "test10Password");
+        String token = login.getHeaders()
+                            .getFirst("Authorization");
+        String refreshToken = login.getHeaders()
+                                   .getFirst(SecurityConstants.REFRESH_HEADER_STRING);
+
+        HttpResponse<String> logout = Unirest.post(baseUrl + "/api/auth/logout")
+                                             .header("Authorization", token)
+                                             .header(SecurityConstants.REFRESH_HEADER_STRING, refreshToken)
+                                             .asString();
+
+        assertThat(logout.getStatus()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(Unirest.get(baseUrl + "/api/item")
+                          .header("Authorization", token)
+                          .asString()
+                          .getStatus()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(performRefresh(baseUrl, refreshToken).getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
     @Test
     void testLoginFailOnIncorrectPassword() {
         final String baseUrl = HOST + port;
@@ -129,6 +250,44 @@ class SecurityTests {
         assertThat(response2.getStatus()).isEqualTo(HttpStatus.FORBIDDEN);
     }
 
+    @Test
+    void testLoginThrottledAfterRepeatedAttempts() {
+        final String baseUrl = HOST + port;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(performLogin(baseUrl, "throttledUser", "wrongPassword").getStatus())
+                    .isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        HttpResponse<String> response = performLogin(baseUrl, "throttledUser", "wrongPassword");
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void testLoginThrottlesEachClientBehindAProxySeparately() {
+        final String baseUrl = HOST + port;
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(performLogin(baseUrl, "proxiedUser" + i, "wrongPassword", "203.0.113.7").getStatus())
+                    .isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        assertThat(performLogin(baseUrl, "proxiedUser50", "wrongPassword", "203.0.113.7").getStatus())
+                .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(performLogin(baseUrl, "proxiedUser51", "wrongPassword", "203.0.113.8").getStatus())
+                .isNotEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void testLoginRejectsOversizedBody() {
+        final String baseUrl = HOST + port;
+
+        HttpResponse<String> response = performLogin(baseUrl, "oversizedUser", "x".repeat(5000));
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     @Test
     void testLoginFailOnNonExistentUser() {
         final String baseUrl = HOST + port;
@@ -161,7 +320,7 @@ class SecurityTests {
 
         @ParameterizedTest
         @ValueSource(strings = {"/api/item/name/Item1", "/api/item/1", "/api/item", "/api/order/history", "/api/user/id/1",
-                                "/api/user/username"})
+                                "/api/user/username", "/api/order/stats", "/api/order/export"})
         void testAuthorizedAccessGet(String path) {
             final String baseUrl = HOST + port + path;
 
@@ -200,6 +359,25 @@ class SecurityTests {
                       .asString();
     }
 
+    private static HttpResponse<String> performLogin(String baseUrl, String username, String password,
+            String forwardedFor) {
+        String loginBody = String.format("{\"username\": \"%s\", \"password\": \"%s\"}", username, password);
+
+        return Unirest.post(baseUrl + "/login")
+                      .header("accept", "*/*")
+                      .header("X-Forwarded-For", forwardedFor)
+                      .contentType(ContentType.APPLICATION_JSON)
+                      .body(loginBody)
+                      .asString();
+    }
+
+    private static HttpResponse<String> performRefresh(String baseUrl, String refreshToken) {
+        return Unirest.post(baseUrl + SecurityConstants.REFRESH_URL)
+                      .header("accept", "*/*")
+                      .header(SecurityConstants.REFRESH_HEADER_STRING, refreshToken)
+                      .asString();
+    }
+
     private static HttpResponse<User> createUser(String baseUrl, String user, String password) {
         return createUser(baseUrl, user, password, password);
     }
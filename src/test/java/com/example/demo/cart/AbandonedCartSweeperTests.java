@@ -0,0 +1,136 @@
+package com.example.demo.cart;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import io.micrometer.core.instrument.simple.*;
+import java.math.*;
+import java.sql.*;
+import java.time.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.transaction.annotation.*;
+import org.springframework.transaction.support.*;
+
+
+@SpringBootTest(classes = EcommerceApplication.class)
+@Transactional
+class AbandonedCartSweeperTests {
+
+    private final CartRepository cartRepository;
+    private final ItemRepository itemRepository;
+    private final CartStore cartStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcOperations namedParameterJdbcOperations;
+    private final TransactionOperations transactionOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private Item item;
+
+    @Autowired
+    AbandonedCartSweeperTests(CartRepository cartRepository, ItemRepository itemRepository, CartStore cartStore,
+            JdbcTemplate jdbcTemplate, NamedParameterJdbcOperations namedParameterJdbcOperations,
+            TransactionOperations transactionOperations) {
+        this.cartRepository = cartRepository;
+        this.itemRepository = itemRepository;
+        this.cartStore = cartStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcOperations = namedParameterJdbcOperations;
+        this.transactionOperations = transactionOperations;
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        item = itemRepository.findAll()
+                             .getFirst();
+    }
+
+    @Test
+    void testStaleCartsAreEmptiedInChunks() {
+        long first = cartWithLines(Duration.ofDays(40));
+        long second = cartWithLines(Duration.ofDays(31));
+        long fresh = cartWithLines(Duration.ofDays(1));
+
+        int deleted = sweeper(1).sweep();
+
+        assertThat(deleted).isEqualTo(4);
+        assertThat(lineCount(first)).isZero();
+        assertThat(lineCount(second)).isZero();
+        assertThat(lineCount(fresh)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select total from carts where id = ?", BigDecimal.class, first))
+                .isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(meterRegistry.get("cart.sweeper.carts")
+                                .counter()
+                                .count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cart.sweeper.lines")
+                                .counter()
+                                .count()).isEqualTo(4);
+        assertThat(meterRegistry.get("cart.sweeper.run")
+                                .timer()
+                                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void testSweptCartIsEmptyWhenReadAgain() {
+        long cartId = cartWithLines(Duration.ofDays(40));
+        long version = cartStore.view(cartId)
+                                .version();
+
+        sweeper(500).sweep();
+
+        assertThat(cartStore.view(cartId)
+                            .lines()).isEmpty();
+        assertThat(cartStore.view(cartId)
+                            .version()).isGreaterThan(version);
+    }
+
+    @Test
+    void testEmptyCartsAreNotSwept() {
+        Cart cart = cartRepository.save(new Cart());
+        touch(cart.getId(), Duration.ofDays(40));
+
+        assertThat(sweeper(500).sweep()).isZero();
+        assertThat(meterRegistry.get("cart.sweeper.carts")
+                                .counter()
+                                .count()).isZero();
+    }
+
+    private AbandonedCartSweeper sweeper(int chunkSize) {
+        return new AbandonedCartSweeper(namedParameterJdbcOperations, transactionOperations, cartStore,
+                meterRegistry, Duration.ofDays(30), chunkSize, Clock.systemUTC());
+    }
+
+    private long cartWithLines(Duration age) {
+        Cart cart = cartRepository.save(new Cart());
+        Item other = new Item();
+        other.setName("Sweeper Item");
+        other.setDescription("Item for the sweeper tests");
+        other.setPrice(Money.of(BigDecimal.valueOf(3.50)));
+        itemRepository.save(other);
+        cartStore.update(cart.getId(), c -> {
+            c.addItem(item, 2);
+            c.addItem(other, 1);
+        });
+        cartRepository.flush();
+        touch(cart.getId(), age);
+        return cart.getId();
+    }
+
+    private void touch(long cartId, Duration age) {
+        jdbcTemplate.update("update carts set updated_at = ? where id = ?", Timestamp.from(Instant.now()
+                                                                                                 .minus(age)),
+                cartId);
+    }
+
+    private int lineCount(long cartId) {
+        return jdbcTemplate.queryForObject("select count(*) from cart_lines where cart_id = ?", Integer.class,
+                cartId);
+    }
+}
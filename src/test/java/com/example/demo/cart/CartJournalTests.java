@@ -0,0 +1,117 @@
+package com.example.demo.cart;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.model.persistence.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+
+class CartJournalTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLatestRecordPerCartIsPending()
+            throws Exception {
+        try (CartJournal journal = new CartJournal(directory.resolve("carts.journal"), false)) {
+            journal.append(snapshot(1, 1));
+            journal.append(snapshot(2, 5));
+            journal.append(snapshot(1, 3));
+
+            assertThat(journal.readPending()).extracting(CartSnapshot::cartId, s -> s.lines()
+                                                                                     .getFirst()
+                                                                                     .quantity())
+                                             .containsExactly(tuple(1L, 3), tuple(2L, 5));
+        }
+    }
+
+    @Test
+    void testRotatedRecordsStayPendingUntilDiscarded()
+            throws Exception {
+        try (CartJournal journal = new CartJournal(directory.resolve("carts.journal"), false)) {
+            journal.append(snapshot(1, 1));
+            journal.rotate();
+            journal.append(snapshot(2, 2));
+
+            assertThat(journal.readPending()).extracting(CartSnapshot::cartId)
+                                             .containsExactly(1L, 2L);
+
+            journal.discardRotated();
+
+            assertThat(journal.readPending()).extracting(CartSnapshot::cartId)
+                                             .containsExactly(2L);
+        }
+    }
+
+    @Test
+    void testConcurrentAppendsAreSyncedByGroupCommit()
+            throws Exception {
+        try (CartJournal journal = new CartJournal(directory.resolve("carts.journal"), true, Duration.ofMillis(1));
+             ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                long firstCartId = thread * 50L;
+                futures.add(executor.submit(() -> {
+                    for (long cartId = firstCartId; cartId < firstCartId + 50; cartId++) {
+                        journal.append(snapshot(cartId, 1));
+                        journal.sync();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+
+            assertThat(journal.readPending()).hasSize(400);
+        }
+    }
+
+    @Test
+    void testTornLastLineIsSkipped()
+            throws Exception {
+        Path path = directory.resolve("carts.journal");
+        Files.writeString(path, snapshot(1, 2).toJournalLine() + "\n7;2;1700000000000;1299;3:");
+
+        try (CartJournal journal = new CartJournal(path, false)) {
+            assertThat(journal.readPending()).extracting(CartSnapshot::cartId)
+                                             .containsExactly(1L);
+        }
+    }
+
+    @Test
+    void testJournalLineRoundTrip() {
+        CartSnapshot snapshot = new CartSnapshot(7, 3, Instant.ofEpochMilli(1_700_000_000_000L),
+                Money.ofMinor(1097), List.of(new CartSnapshot.Line(1, 3, Money.ofMinor(299)),
+                        new CartSnapshot.Line(2, 1, Money.ofMinor(200))));
+
+        assertThat(CartSnapshot.parseJournalLine(snapshot.toJournalLine())).isEqualTo(snapshot);
+        assertThat(CartSnapshot.parseJournalLine("8;0;0;0;")
+                               .lines()).isEmpty();
+    }
+
+    @Test
+    void testJournalLineWithoutTimeIsReadWithTheCurrentTime() {
+        Instant before = Instant.now();
+
+        CartSnapshot snapshot = CartSnapshot.parseJournalLine("7;3;1097;1:3:299,2:1:200");
+
+        assertThat(snapshot.cartId()).isEqualTo(7);
+        assertThat(snapshot.version()).isEqualTo(3);
+        assertThat(snapshot.updatedAt()).isAfterOrEqualTo(before);
+        assertThat(snapshot.total()).isEqualTo(Money.ofMinor(1097));
+        assertThat(snapshot.lines()).containsExactly(new CartSnapshot.Line(1, 3, Money.ofMinor(299)),
+                new CartSnapshot.Line(2, 1, Money.ofMinor(200)));
+    }
+
+    private static CartSnapshot snapshot(long cartId, int quantity) {
+        return new CartSnapshot(cartId, quantity, Instant.EPOCH, Money.ofMinor(199L * quantity),
+                List.of(new CartSnapshot.Line(1, quantity, Money.ofMinor(199))));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.cart;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.responses.*;
+import java.math.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.transaction.annotation.*;
+
+
+@SpringBootTest(classes = EcommerceApplication.class)
+@Transactional
+class CartRepricerTests {
+
+    private final CartRepricer cartRepricer;
+    private final CartTotalChecker cartTotalChecker;
+    private final CartStore cartStore;
+    private final CartRepository cartRepository;
+    private final ItemRepository itemRepository;
+
+    private Item repriced;
+    private Item unchanged;
+
+    @Autowired
+    CartRepricerTests(CartRepricer cartRepricer, CartTotalChecker cartTotalChecker, CartStore cartStore,
+            CartRepository cartRepository, ItemRepository itemRepository) {
+        this.cartRepricer = cartRepricer;
+        this.cartTotalChecker = cartTotalChecker;
+        this.cartStore = cartStore;
+        this.cartRepository = cartRepository;
+        this.itemRepository = itemRepository;
+    }
+
+    @BeforeEach
+    void setUp() {
+        repriced = item("Repriced Item", 2.00);
+        unchanged = item("Unchanged Item", 5.00);
+    }
+
+    @Test
+    void testChangePriceRepricesEveryCartHoldingTheItem() {
+        long first = cart(3, 1);
+        long second = cart(1, 0);
+        long other = cart(0, 2);
+        long version = cartStore.view(first)
+                                .version();
+
+        int carts = cartRepricer.changePrice(repriced.getId(), Money.of(BigDecimal.valueOf(2.50)));
+
+        assertThat(carts).isEqualTo(2);
+        CartResponse firstCart = cartStore.view(first);
+        assertThat(firstCart.total()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(12.50)));
+        assertThat(firstCart.version()).isGreaterThan(version);
+        assertThat(firstCart.lines()).extracting(CartLineResponse::unitPrice)
+                                     .containsExactly(Money.of(BigDecimal.valueOf(2.50)),
+                                             Money.of(BigDecimal.valueOf(5.00)));
+        assertThat(cartStore.view(second)
+                            .total()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(2.50)));
+        assertThat(cartStore.view(other)
+                            .total()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(10.00)));
+        assertThat(cartTotalChecker.check(first, 100)).isEmpty();
+    }
+
+    @Test
+    void testChangePriceOfUnknownItem() {
+        assertThat(cartRepricer.changePrice(999_999L, Money.zero())).isEqualTo(-1);
+    }
+
+    private Item item(String name, double price) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(name);
+        item.setPrice(Money.of(BigDecimal.valueOf(price)));
+        return itemRepository.save(item);
+    }
+
+    private long cart(int repricedQuantity, int unchangedQuantity) {
+        Cart cart = cartRepository.save(new Cart());
+        cartStore.update(cart.getId(), c -> {
+            c.addItem(repriced, repricedQuantity);
+            c.addItem(unchanged, unchangedQuantity);
+        });
+        cartRepository.flush();
+        return cart.getId();
+    }
+}
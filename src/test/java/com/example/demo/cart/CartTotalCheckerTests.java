@@ -0,0 +1,57 @@
+package com.example.demo.cart;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.transaction.annotation.*;
+
+
+@SpringBootTest(classes = EcommerceApplication.class)
+@Transactional
+class CartTotalCheckerTests {
+
+    private final CartTotalChecker cartTotalChecker;
+    private final CartStore cartStore;
+    private final CartRepository cartRepository;
+    private final ItemRepository itemRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CartTotalCheckerTests(CartTotalChecker cartTotalChecker, CartStore cartStore, CartRepository cartRepository,
+            ItemRepository itemRepository, JdbcTemplate jdbcTemplate) {
+        this.cartTotalChecker = cartTotalChecker;
+        this.cartStore = cartStore;
+        this.cartRepository = cartRepository;
+        this.itemRepository = itemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Test
+    void testOnlyCartsWithWrongTotalsAreReported() {
+        Item item = itemRepository.findAll()
+                                  .getFirst();
+        long consistent = cartRepository.save(new Cart())
+                                        .getId();
+        long corrupted = cartRepository.save(new Cart())
+                                       .getId();
+        cartStore.update(consistent, cart -> cart.addItem(item, 2));
+        cartStore.update(corrupted, cart -> cart.addItem(item, 2));
+        cartRepository.flush();
+        jdbcTemplate.update("update carts set total = total + 1 where id = ?", corrupted);
+
+        assertThat(cartTotalChecker.check(consistent, 2)).containsExactly(corrupted);
+        assertThat(cartTotalChecker.check(consistent, 1)).isEmpty();
+    }
+
+    @Test
+    void testRangePastTheLastCartChecksNothing() {
+        assertThat(cartTotalChecker.check(Long.MAX_VALUE, 10)).isEmpty();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.cart;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.model.persistence.*;
+import io.micrometer.core.instrument.simple.*;
+import java.time.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+import org.springframework.dao.*;
+import org.springframework.transaction.support.*;
+
+
+class CartUpdateExecutorTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CartUpdateExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new CartUpdateExecutor(TransactionOperations.withoutTransaction(), 3, Duration.ofMillis(1),
+                meterRegistry);
+    }
+
+    @Test
+    void testConflictIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("stale cart");
+            }
+            return "saved";
+        });
+
+        assertThat(result).isEqualTo("saved");
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.get("cart.update.conflicts")
+                                .counter()
+                                .count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cart.update.retries")
+                                .counter()
+                                .count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cart.update.exhausted")
+                                .counter()
+                                .count()).isZero();
+    }
+
+    @Test
+    void testConflictIsRethrownAfterLastAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        Throwable thrown = catchThrowable(() -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale cart");
+        }));
+
+        assertThat(thrown).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.get("cart.update.exhausted")
+                                .counter()
+                                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void testDuplicateLineIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute(() -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw new DataIntegrityViolationException("could not execute statement",
+                        new IllegalStateException("Unique index or primary key violation: \"PUBLIC."
+                                + CartLine.CART_ITEM_CONSTRAINT.toUpperCase() + "_INDEX_8\""));
+            }
+            return "saved";
+        });
+
+        assertThat(result).isEqualTo("saved");
+        assertThat(attempts).hasValue(2);
+        assertThat(meterRegistry.get("cart.update.conflicts")
+                                .counter()
+                                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void testOtherConstraintViolationsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        Throwable thrown = catchThrowable(() -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("NULL not allowed for column \"ITEM_ID\"");
+        }));
+
+        assertThat(thrown).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void testOtherExceptionsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        Throwable thrown = catchThrowable(() -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(attempts).hasValue(1);
+    }
+}
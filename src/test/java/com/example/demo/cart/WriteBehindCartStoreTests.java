@@ -0,0 +1,371 @@
+package com.example.demo.cart;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.controllers.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.requests.*;
+import com.example.demo.model.responses.*;
+import io.micrometer.core.instrument.simple.*;
+import java.io.*;
+import java.math.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.security.authentication.*;
+import org.springframework.security.core.*;
+import org.springframework.test.context.*;
+import org.springframework.transaction.support.*;
+
+
+@SpringBootTest(classes = EcommerceApplication.class,
+        properties = {"cart.store.mode=write-behind", "cart.store.flush-interval-ms=3600000"})
+class WriteBehindCartStoreTests {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("cart.store.journal.path", () -> journalDirectory.resolve("carts.journal")
+                                                                      .toString());
+    }
+
+    private final WriteBehindCartStore cartStore;
+    private final UserController userController;
+    private final OrderController orderController;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcOperations namedParameterJdbcOperations;
+    private final TransactionOperations transactionOperations;
+
+    private User testUser;
+    private long cartId;
+    private Item item;
+
+    @Autowired
+    WriteBehindCartStoreTests(CartStore cartStore, UserController userController, OrderController orderController,
+            UserRepository userRepository, ItemRepository itemRepository, OrderRepository orderRepository,
+            JdbcTemplate jdbcTemplate, NamedParameterJdbcOperations namedParameterJdbcOperations,
+            TransactionOperations transactionOperations) {
+        this.cartStore = (WriteBehindCartStore) cartStore;
+        this.userController = userController;
+        this.orderController = orderController;
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcOperations = namedParameterJdbcOperations;
+        this.transactionOperations = transactionOperations;
+    }
+
+    @BeforeEach
+    void setUp() {
+        CreateUserRequest createUserRequest = new CreateUserRequest();
+        createUserRequest.setUsername("writeBehindUser");
+        createUserRequest.setPassword("TestP@ssw0rd");
+        createUserRequest.setRepeatedPassword("TestP@ssw0rd");
+        testUser = userController.createUser(createUserRequest)
+                                 .getBody();
+        cartId = testUser.getCart()
+                         .getId();
+        item = itemRepository.findAll()
+                             .getFirst();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartStore.flushAll();
+        orderRepository.deleteAll(orderRepository.findByUserId(testUser.getId()));
+        userRepository.deleteById(testUser.getId());
+    }
+
+    @Test
+    void testChangesAreServedFromMemoryUntilFlushed() {
+        Cart cart = cartStore.update(cartId, c -> c.addItem(item, 3));
+
+        assertThat(cart.getQuantity(item)).isEqualTo(3);
+        assertThat(cartStore.get(cartId)
+                            .getQuantity(item)).isEqualTo(3);
+        assertThat(storedTotal()).isNull();
+        assertThat(storedQuantity()).isNull();
+
+        cartStore.flushAll();
+
+        assertThat(storedTotal()).isEqualByComparingTo(item.getPrice()
+                                                           .times(3)
+                                                           .toBigDecimal());
+        assertThat(storedQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void testHandedOutCartIsNotChangedByLaterUpdates() {
+        Cart first = cartStore.update(cartId, c -> c.addItem(item, 1));
+
+        cartStore.update(cartId, c -> c.addItem(item, 1));
+
+        assertThat(first.getQuantity(item)).isEqualTo(1);
+        assertThat(cartStore.get(cartId)
+                            .getQuantity(item)).isEqualTo(2);
+    }
+
+    @Test
+    void testSubmitFlushesTheCart() {
+        cartStore.update(cartId, c -> c.addItem(item, 2));
+        Authentication authentication = new UsernamePasswordAuthenticationToken(testUser.getUsername(), null,
+                Collections.emptyList());
+
+        ResponseEntity<UserOrder> response = orderController.submit(authentication);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody()
+                           .getItemCount()).isEqualTo(2);
+        assertThat(storedQuantity()).isEqualTo(2);
+    }
+
+    @Test
+    void testPendingChangesAreRecoveredFromTheJournal()
+            throws IOException {
+        cartStore.update(cartId, c -> c.addItem(item, 4));
+        assertThat(Files.readString(journalDirectory.resolve("carts.journal"))).startsWith(cartId + ";");
+
+        cartStore.recover();
+
+        assertThat(storedQuantity()).isEqualTo(4);
+        assertThat(Files.size(journalDirectory.resolve("carts.journal"))).isZero();
+    }
+
+    @Test
+    void testEveryUpdateBumpsTheVersionAndTheFlushStoresIt() {
+        long loadedVersion = cartStore.get(cartId)
+                                      .getVersion();
+
+        cartStore.update(cartId, c -> c.addItem(item, 1));
+        Cart cart = cartStore.update(cartId, c -> c.addItem(item, 1));
+
+        assertThat(cart.getVersion()).isEqualTo(loadedVersion + 2);
+        cartStore.flushAll();
+        assertThat(jdbcTemplate.queryForObject("select version from carts where id = ?", Long.class, cartId))
+                .isEqualTo(loadedVersion + 2);
+    }
+
+    @Test
+    void testCartThatCannotBeWrittenDoesNotHoldBackItsBatch() {
+        CreateUserRequest createUserRequest = new CreateUserRequest();
+        createUserRequest.setUsername("writeBehindOtherUser");
+        createUserRequest.setPassword("TestP@ssw0rd");
+        createUserRequest.setRepeatedPassword("TestP@ssw0rd");
+        User otherUser = userController.createUser(createUserRequest)
+                                       .getBody();
+        long otherCartId = otherUser.getCart()
+                                    .getId();
+        Item deleted = new Item();
+        deleted.setName("Write-Behind Deleted Item");
+        deleted.setDescription("Item deleted while a cart holding it is not yet flushed");
+        deleted.setPrice(Money.of(BigDecimal.valueOf(1.00)));
+        itemRepository.save(deleted);
+        try {
+            cartStore.update(cartId, c -> c.addItem(deleted, 1));
+            cartStore.update(otherCartId, c -> c.addItem(item, 2));
+            itemRepository.deleteById(deleted.getId());
+
+            cartStore.flushAll();
+
+            assertThat(jdbcTemplate.queryForObject("select quantity from cart_lines where cart_id = ?",
+                    Integer.class, otherCartId)).isEqualTo(2);
+            assertThat(storedQuantity()).isNull();
+
+            cartStore.update(cartId, c -> c.setQuantity(deleted, 0));
+            cartStore.flushAll();
+
+            assertThat(storedTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+        } finally {
+            userRepository.deleteById(otherUser.getId());
+        }
+    }
+
+    @Test
+    void testCartChangedDuringRepricingKeepsTheNewPrice() {
+        Item repriced = new Item();
+        repriced.setName("Write-Behind Repriced Item");
+        repriced.setDescription("Item repriced while a cart holding it changes");
+        repriced.setPrice(Money.of(BigDecimal.valueOf(2.00)));
+        itemRepository.save(repriced);
+        cartStore.update(cartId, c -> c.addItem(repriced, 2));
+        cartStore.flush(cartId);
+        Money price = Money.of(BigDecimal.valueOf(3.00));
+
+        CartStore changingStore = new CartStore() {
+            @Override
+            public Cart get(long id) {
+                return cartStore.get(id);
+            }
+
+            @Override
+            public CartResponse view(long id) {
+                return cartStore.view(id);
+            }
+
+            @Override
+            public Cart update(long id, Consumer<Cart> mutation) {
+                return cartStore.update(id, mutation);
+            }
+
+            @Override
+            public void evict(long id) {
+                cartStore.evict(id);
+            }
+
+            @Override
+            public void reprice(long id, long itemId, Money unitPrice) {
+                cartStore.reprice(id, itemId, unitPrice);
+            }
+
+            @Override
+            public int repriceCached(long itemId, Money unitPrice) {
+                return cartStore.repriceCached(itemId, unitPrice);
+            }
+
+            @Override
+            public void holdingFlushes(Runnable action) {
+                cartStore.holdingFlushes(action);
+            }
+
+            @Override
+            public void flush(long id) {
+                cartStore.flush(id);
+                cartStore.update(id, c -> c.addItem(repriced, 1));
+            }
+        };
+        new CartRepricer(namedParameterJdbcOperations, transactionOperations, changingStore,
+                new SimpleMeterRegistry(), 500).changePrice(repriced.getId(), price);
+        cartStore.flushAll();
+
+        assertThat(cartStore.view(cartId)
+                            .total()).isEqualTo(price.times(3));
+        assertThat(storedTotal()).isEqualByComparingTo(price.times(3)
+                                                            .toBigDecimal());
+        assertThat(jdbcTemplate.queryForObject("select unit_price from cart_lines where cart_id = ? and item_id = ?",
+                BigDecimal.class, cartId, repriced.getId())).isEqualByComparingTo(price.toBigDecimal());
+    }
+
+    @Test
+    void testFlushAllWaitsForTheRepricingOfAChunk() {
+        Item repriced = repricedItem();
+        cartStore.update(cartId, c -> c.addItem(repriced, 2));
+        cartStore.flush(cartId);
+        Money price = Money.of(BigDecimal.valueOf(3.00));
+        AtomicReference<Future<?>> concurrentFlush = new AtomicReference<>();
+
+        CartStore flushingStore = new CartStore() {
+            @Override
+            public Cart get(long id) {
+                return cartStore.get(id);
+            }
+
+            @Override
+            public CartResponse view(long id) {
+                return cartStore.view(id);
+            }
+
+            @Override
+            public Cart update(long id, Consumer<Cart> mutation) {
+                return cartStore.update(id, mutation);
+            }
+
+            @Override
+            public void evict(long id) {
+                cartStore.evict(id);
+            }
+
+            @Override
+            public void reprice(long id, long itemId, Money unitPrice) {
+                cartStore.reprice(id, itemId, unitPrice);
+            }
+
+            @Override
+            public int repriceCached(long itemId, Money unitPrice) {
+                return cartStore.repriceCached(itemId, unitPrice);
+            }
+
+            @Override
+            public void holdingFlushes(Runnable action) {
+                cartStore.holdingFlushes(action);
+            }
+
+            @Override
+            public void flush(long id) {
+                cartStore.flush(id);
+                cartStore.update(id, c -> c.addItem(repriced, 1));
+                Future<?> flushAll = CompletableFuture.runAsync(cartStore::flushAll);
+                concurrentFlush.set(flushAll);
+                assertThatThrownBy(() -> flushAll.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(
+                        TimeoutException.class);
+            }
+        };
+        new CartRepricer(namedParameterJdbcOperations, transactionOperations, flushingStore,
+                new SimpleMeterRegistry(), 500).changePrice(repriced.getId(), price);
+        assertThat(concurrentFlush.get()).succeedsWithin(Duration.ofSeconds(5));
+        cartStore.flushAll();
+
+        assertThat(storedTotal()).isEqualByComparingTo(price.times(3)
+                                                            .toBigDecimal());
+        assertThat(storedUnitPrice(repriced)).isEqualByComparingTo(price.toBigDecimal());
+    }
+
+    @Test
+    void testUnflushedCartHoldingTheItemIsRepriced() {
+        Item repriced = repricedItem();
+        cartStore.update(cartId, c -> c.addItem(repriced, 2));
+        Money price = Money.of(BigDecimal.valueOf(3.00));
+
+        int carts = new CartRepricer(namedParameterJdbcOperations, transactionOperations, cartStore,
+                new SimpleMeterRegistry(), 500).changePrice(repriced.getId(), price);
+        cartStore.flushAll();
+
+        assertThat(carts).isEqualTo(1);
+        assertThat(cartStore.view(cartId)
+                            .total()).isEqualTo(price.times(2));
+        assertThat(storedTotal()).isEqualByComparingTo(price.times(2)
+                                                            .toBigDecimal());
+        assertThat(storedUnitPrice(repriced)).isEqualByComparingTo(price.toBigDecimal());
+    }
+
+    private Item repricedItem() {
+        Item repriced = new Item();
+        repriced.setName("Write-Behind Repriced Item");
+        repriced.setDescription("Item repriced while a cart holding it changes");
+        repriced.setPrice(Money.of(BigDecimal.valueOf(2.00)));
+        return itemRepository.save(repriced);
+    }
+
+    private BigDecimal storedUnitPrice(Item item) {
+        return jdbcTemplate.queryForObject("select unit_price from cart_lines where cart_id = ? and item_id = ?",
+                BigDecimal.class, cartId, item.getId());
+    }
+
+    private BigDecimal storedTotal() {
+        return jdbcTemplate.queryForObject("select total from carts where id = ?", BigDecimal.class, cartId);
+    }
+
+    private Integer storedQuantity() {
+        return jdbcTemplate.query("select quantity from cart_lines where cart_id = ?",
+                rs -> rs.next() ? rs.getInt(1) : null, cartId);
+    }
+}
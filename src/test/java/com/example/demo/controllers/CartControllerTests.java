@@ -7,6 +7,8 @@ import com.example.demo.*;
 import com.example.demo.model.persistence.*;
 import com.example.demo.model.persistence.repositories.*;
 import com.example.demo.model.requests.*;
+import com.example.demo.model.responses.*;
+import com.example.demo.security.*;
 import java.math.*;
 import java.util.*;
 import org.junit.jupiter.api.*;
@@ -27,6 +29,7 @@ class CartControllerTests {
     private final ItemRepository itemRepository;
     private final CartRepository cartRepository;
 
+    private User testUser;
     private Item testItem;
     private Authentication authentication;
 
@@ -43,13 +46,12 @@ class CartControllerTests {
 
     @BeforeEach
     void setUp() {
-        User testUser = new User();
+        testUser = new User();
         testUser.setUsername("testUser");
         testUser.setPassword("testPassword");
 
         Cart cart = new Cart();
-        cart.setItems(new ArrayList<>());
-        cart.setTotal(BigDecimal.ZERO);
+        cart.setTotal(Money.zero());
         cartRepository.save(cart);
 
         testUser.setCart(cart);
@@ -59,7 +61,7 @@ class CartControllerTests {
         testItem = new Item();
         testItem.setName("Test Item");
         testItem.setDescription("Test item description");
-        testItem.setPrice(BigDecimal.valueOf(10.00));
+        testItem.setPrice(Money.of(BigDecimal.valueOf(10.00)));
         itemRepository.save(testItem);
 
         authentication = new UsernamePasswordAuthenticationToken(testUser.getUsername(), null, Collections.emptyList());
@@ -76,17 +78,37 @@ class CartControllerTests {
         request.setItemId(testItem.getId());
         request.setQuantity(2);
 
-        ResponseEntity<Cart> response = cartController.addToCart(request, authentication);
+        ResponseEntity<CartResponse> response = cartController.addToCart(request, authentication);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()
-                           .getItems()).hasSize(2);
+                           .lines()).hasSize(1);
+        assertThat(quantity(response.getBody()
+                           , testItem)).isEqualTo(2);
         assertThat(response.getBody()
-                           .getItems()).allMatch(item -> item.getId()
-                                                             .equals(testItem.getId()));
+                           .total()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(20.00)));
+    }
+
+    @Test
+    void testAddToCartWithUserPrincipal() {
+        ModifyCartRequest request = new ModifyCartRequest();
+        request.setItemId(testItem.getId());
+        request.setQuantity(1);
+        Authentication principalAuth = new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(testUser.getId(), testUser.getCart()
+                                                            .getId(), testUser.getUsername()), null,
+                Collections.emptyList());
+
+        ResponseEntity<CartResponse> response = cartController.addToCart(request, principalAuth);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()
-                           .getTotal()).isEqualByComparingTo(BigDecimal.valueOf(20.00));
+                           .id()).isEqualTo(testUser.getCart()
+                                                       .getId());
+        assertThat(response.getBody()
+                           .itemCount()).isEqualTo(1);
     }
 
     @Test
@@ -95,7 +117,7 @@ class CartControllerTests {
         request.setItemId(999L); // Non-existent item ID
         request.setQuantity(2);
 
-        ResponseEntity<Cart> response = cartController.addToCart(request, authentication);
+        ResponseEntity<CartResponse> response = cartController.addToCart(request, authentication);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -109,7 +131,7 @@ class CartControllerTests {
         Authentication invalidAuth = new UsernamePasswordAuthenticationToken("nonExistentUser", null,
                 Collections.emptyList());
 
-        ResponseEntity<Cart> response = cartController.addToCart(request, invalidAuth);
+        ResponseEntity<CartResponse> response = cartController.addToCart(request, invalidAuth);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -120,7 +142,7 @@ class CartControllerTests {
         request.setItemId(testItem.getId());
         request.setQuantity(2);
 
-        ResponseEntity<Cart> response = cartController.addToCart(request, null);
+        ResponseEntity<CartResponse> response = cartController.addToCart(request, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
     }
@@ -130,21 +152,21 @@ class CartControllerTests {
         ModifyCartRequest addRequest = new ModifyCartRequest();
         addRequest.setItemId(testItem.getId());
         addRequest.setQuantity(3);
-        ResponseEntity<Cart> addResponse = cartController.addToCart(addRequest, authentication);
+        ResponseEntity<CartResponse> addResponse = cartController.addToCart(addRequest, authentication);
         assertThat(addResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
 
         ModifyCartRequest removeRequest = new ModifyCartRequest();
         removeRequest.setItemId(testItem.getId());
         removeRequest.setQuantity(2);
 
-        ResponseEntity<Cart> response = cartController.removeFromCart(removeRequest, authentication);
+        ResponseEntity<CartResponse> response = cartController.removeFromCart(removeRequest, authentication);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()
-                           .getItems()).hasSize(1);
+                           .itemCount()).isEqualTo(1);
         assertThat(response.getBody()
-                           .getTotal()).isEqualByComparingTo(BigDecimal.valueOf(10.00));
+                           .total()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(10.00)));
     }
 
     @Test
@@ -153,7 +175,7 @@ class CartControllerTests {
         request.setItemId(999L); // Non-existent item ID
         request.setQuantity(1);
 
-        ResponseEntity<Cart> response = cartController.removeFromCart(request, authentication);
+        ResponseEntity<CartResponse> response = cartController.removeFromCart(request, authentication);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -167,7 +189,7 @@ class CartControllerTests {
         Authentication invalidAuth = new UsernamePasswordAuthenticationToken("nonExistentUser", null,
                 Collections.emptyList());
 
-        ResponseEntity<Cart> response = cartController.removeFromCart(request, invalidAuth);
+        ResponseEntity<CartResponse> response = cartController.removeFromCart(request, invalidAuth);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
@@ -178,7 +200,7 @@ class CartControllerTests {
         request.setItemId(testItem.getId());
         request.setQuantity(1);
 
-        ResponseEntity<Cart> response = cartController.removeFromCart(request, null);
+        ResponseEntity<CartResponse> response = cartController.removeFromCart(request, null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
     }
@@ -189,13 +211,143 @@ class CartControllerTests {
         removeRequest.setItemId(testItem.getId());
         removeRequest.setQuantity(2);
 
-        ResponseEntity<Cart> response = cartController.removeFromCart(removeRequest, authentication);
+        ResponseEntity<CartResponse> response = cartController.removeFromCart(removeRequest, authentication);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()
-                           .getItems()).isEmpty();
+                           .lines()).isEmpty();
         assertThat(response.getBody()
-                           .getTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+                           .total()).isEqualByComparingTo(Money.zero());
+    }
+
+    @Test
+    void testBatchAppliesOperationsInOrder() {
+        Item otherItem = new Item();
+        otherItem.setName("Other Item");
+        otherItem.setDescription("Other item description");
+        otherItem.setPrice(Money.of(BigDecimal.valueOf(5.00)));
+        itemRepository.save(otherItem);
+
+        List<ModifyCartRequest> requests = List.of(
+                modifyCartRequest(testItem.getId(), 3, CartOperation.ADD),
+                modifyCartRequest(otherItem.getId(), 4, CartOperation.ADD),
+                modifyCartRequest(testItem.getId(), 1, CartOperation.REMOVE),
+                modifyCartRequest(otherItem.getId(), 1, CartOperation.SET_QUANTITY),
+                modifyCartRequest(999L, 1, CartOperation.ADD),
+                modifyCartRequest(testItem.getId(), -1, CartOperation.ADD));
+
+        ResponseEntity<CartBatchResponse> response = cartController.batch(requests, authentication);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody()
+                           .results()).extracting(CartBatchResponse.OperationResult::status)
+                                      .containsExactly(CartBatchResponse.Status.APPLIED,
+                                              CartBatchResponse.Status.APPLIED,
+                                              CartBatchResponse.Status.APPLIED,
+                                              CartBatchResponse.Status.APPLIED,
+                                              CartBatchResponse.Status.ITEM_NOT_FOUND,
+                                              CartBatchResponse.Status.INVALID_QUANTITY);
+        CartResponse cart = response.getBody()
+                                    .cart();
+        assertThat(quantity(cart, testItem)).isEqualTo(2);
+        assertThat(quantity(cart, otherItem)).isEqualTo(1);
+        assertThat(cart.total()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(25.00)));
+    }
+
+    @Test
+    void testBatchRejectsEmptyAndOversizedRequests() {
+        assertThat(cartController.batch(List.of(), authentication)
+                                 .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        List<ModifyCartRequest> oversized = Collections.nCopies(CartController.MAX_BATCH_OPERATIONS + 1,
+                modifyCartRequest(testItem.getId(), 1, CartOperation.ADD));
+        assertThat(cartController.batch(oversized, authentication)
+                                 .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testBatchWithNoAuthentication() {
+        List<ModifyCartRequest> requests = List.of(modifyCartRequest(testItem.getId(), 1, CartOperation.ADD));
+
+        assertThat(cartController.batch(requests, null)
+                                 .getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void testGetCartReturnsETag() {
+        ResponseEntity<CartResponse> response = cartController.getCart(null, authentication);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getHeaders().getETag()).isEqualTo(CartController.eTag(response.getBody()));
+        assertThat(response.getHeaders().getCacheControl()).contains("no-cache");
+    }
+
+    @Test
+    void testGetCartWithMatchingETagReturnsNotModified() {
+        String eTag = cartController.getCart(null, authentication).getHeaders().getETag();
+
+        ResponseEntity<CartResponse> response = cartController.getCart(eTag, authentication);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        assertThat(response.getHeaders().getETag()).isEqualTo(eTag);
+
+        assertThat(cartController.getCart("\"other\", W/" + eTag, authentication).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(cartController.getCart("*", authentication).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void testGetCartAfterUpdateReturnsNewETag() {
+        String eTag = cartController.getCart(null, authentication).getHeaders().getETag();
+
+        cartController.addToCart(modifyCartRequest(testItem.getId(), 1, CartOperation.ADD), authentication);
+        cartRepository.flush();
+
+        ResponseEntity<CartResponse> response = cartController.getCart(eTag, authentication);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(eTag);
+        assertThat(response.getBody().itemCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testGetCartReturnsOneLinePerItem() {
+        cartController.addToCart(modifyCartRequest(testItem.getId(), 3, CartOperation.ADD), authentication);
+        cartRepository.flush();
+
+        CartResponse cart = cartController.getCart(null, authentication)
+                                          .getBody();
+
+        assertThat(cart).isNotNull();
+        assertThat(cart.itemCount()).isEqualTo(3);
+        assertThat(cart.total()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(30.00)));
+        assertThat(cart.lines()).containsExactly(
+                new CartLineResponse(testItem.getId(), "Test Item", testItem.getPrice(), 3));
+        assertThat(cart.lines()
+                       .getFirst()
+                       .lineTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(30.00)));
+    }
+
+    @Test
+    void testGetCartWithNoAuthentication() {
+        assertThat(cartController.getCart(null, null).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private static int quantity(CartResponse cart, Item item) {
+        return cart.lines()
+                   .stream()
+                   .filter(line -> line.itemId() == item.getId())
+                   .mapToInt(CartLineResponse::quantity)
+                   .sum();
+    }
+
+    private static ModifyCartRequest modifyCartRequest(long itemId, int quantity, CartOperation operation) {
+        ModifyCartRequest request = new ModifyCartRequest();
+        request.setItemId(itemId);
+        request.setQuantity(quantity);
+        request.setOperation(operation);
+        return request;
     }
 }
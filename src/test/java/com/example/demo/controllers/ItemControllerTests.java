@@ -5,28 +5,34 @@ import static org.assertj.core.api.Assertions.*;
 import com.example.demo.*;
 import com.example.demo.model.persistence.*;
 import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.requests.*;
 import java.math.*;
 import java.util.*;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.boot.test.context.*;
 import org.springframework.http.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.security.authentication.*;
 import org.springframework.transaction.annotation.*;
 
-@SpringBootTest(classes = EcommerceApplication.class)
+@SpringBootTest(classes = EcommerceApplication.class, properties = "item.price-admins=priceAdmin")
 @Transactional
 class ItemControllerTests {
 
     private final ItemController itemController;
     private final ItemRepository itemRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     private Item testItem1;
     private Item testItem2;
 
     @Autowired
-    public ItemControllerTests(ItemController itemController, ItemRepository itemRepository) {
+    public ItemControllerTests(ItemController itemController, ItemRepository itemRepository,
+            JdbcTemplate jdbcTemplate) {
         this.itemController = itemController;
         this.itemRepository = itemRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @BeforeEach
@@ -34,12 +40,12 @@ class ItemControllerTests {
         testItem1 = new Item();
         testItem1.setName("Test Item 1");
         testItem1.setDescription("This is test item 1");
-        testItem1.setPrice(BigDecimal.valueOf(19.99));
+        testItem1.setPrice(Money.of(BigDecimal.valueOf(19.99)));
 
         testItem2 = new Item();
         testItem2.setName("Test Item 2");
         testItem2.setDescription("This is test item 2");
-        testItem2.setPrice(BigDecimal.valueOf(29.99));
+        testItem2.setPrice(Money.of(BigDecimal.valueOf(29.99)));
 
         itemRepository.save(testItem1);
         itemRepository.save(testItem2);
@@ -116,4 +122,46 @@ class ItemControllerTests {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
         assertThat(response.getBody()).isNull();
     }
+
+    @Test
+    void testChangePrice() {
+        Money price = Money.of(BigDecimal.valueOf(24.99));
+
+        ResponseEntity<Item> response = itemController.changePrice(testItem1.getId(),
+                new ChangePriceRequest().setPrice(price), authentication("priceAdmin"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(jdbcTemplate.queryForObject("select price from items where id = ?", BigDecimal.class,
+                testItem1.getId())).isEqualByComparingTo(price.toBigDecimal());
+    }
+
+    @Test
+    void testChangePriceRequiresPriceAdmin() {
+        ResponseEntity<Item> response = itemController.changePrice(testItem1.getId(),
+                new ChangePriceRequest().setPrice(Money.of(BigDecimal.ONE)), authentication("shopper"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(jdbcTemplate.queryForObject("select price from items where id = ?", BigDecimal.class,
+                testItem1.getId())).isEqualByComparingTo(BigDecimal.valueOf(19.99));
+    }
+
+    @Test
+    void testChangePriceRejectsNegativePrice() {
+        ResponseEntity<Item> response = itemController.changePrice(testItem1.getId(),
+                new ChangePriceRequest().setPrice(Money.of(BigDecimal.valueOf(-1))), authentication("priceAdmin"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testChangePriceOfUnknownItem() {
+        ResponseEntity<Item> response = itemController.changePrice(999_999L,
+                new ChangePriceRequest().setPrice(Money.of(BigDecimal.ONE)), authentication("priceAdmin"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private static UsernamePasswordAuthenticationToken authentication(String username) {
+        return new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList());
+    }
 }
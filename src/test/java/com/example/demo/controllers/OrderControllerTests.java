@@ -7,7 +7,14 @@ import com.example.demo.*;
 import com.example.demo.model.persistence.*;
 import com.example.demo.model.persistence.repositories.*;
 import com.example.demo.model.requests.*;
+import com.example.demo.model.responses.*;
+import com.example.demo.order.*;
+import com.example.demo.security.*;
+import java.io.*;
 import java.math.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.time.temporal.*;
 import java.util.*;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.*;
@@ -16,6 +23,7 @@ import org.springframework.http.*;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.*;
 import org.springframework.transaction.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.*;
 
 
 @SpringBootTest(classes = EcommerceApplication.class)
@@ -52,8 +60,7 @@ class OrderControllerTests {
         testUser.setPassword("testPassword");
 
         Cart cart = new Cart();
-        cart.setItems(new ArrayList<>());
-        cart.setTotal(BigDecimal.ZERO);
+        cart.setTotal(Money.zero());
         cartRepository.save(cart);
 
         testUser.setCart(cart);
@@ -63,7 +70,7 @@ class OrderControllerTests {
         testItem = new Item();
         testItem.setName("Test Order Item");
         testItem.setDescription("Test order item description");
-        testItem.setPrice(BigDecimal.valueOf(15.00));
+        testItem.setPrice(Money.of(BigDecimal.valueOf(15.00)));
         itemRepository.save(testItem);
 
         authentication = new UsernamePasswordAuthenticationToken(testUser.getUsername(), null, Collections.emptyList());
@@ -79,7 +86,7 @@ class OrderControllerTests {
         ModifyCartRequest request = new ModifyCartRequest();
         request.setItemId(testItem.getId());
         request.setQuantity(2);
-        ResponseEntity<Cart> cartResponse = cartController.addToCart(request, authentication);
+        ResponseEntity<CartResponse> cartResponse = cartController.addToCart(request, authentication);
         assertThat(cartResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
 
         ResponseEntity<UserOrder> response = orderController.submit(authentication);
@@ -87,12 +94,16 @@ class OrderControllerTests {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()
-                           .getItems()).hasSize(2);
+                           .getItemCount()).isEqualTo(2);
         assertThat(response.getBody()
-                           .getItems()).allMatch(item -> item.getId()
-                                                             .equals(testItem.getId()));
+                           .getLines()).singleElement()
+                                       .satisfies(line -> {
+                                           assertThat(line.getItemId()).isEqualTo(testItem.getId());
+                                           assertThat(line.getName()).isEqualTo(testItem.getName());
+                                           assertThat(line.getQuantity()).isEqualTo(2);
+                                       });
         assertThat(response.getBody()
-                           .getTotal()).isEqualByComparingTo(BigDecimal.valueOf(30.00));
+                           .getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(30.00)));
         assertThat(response.getBody()
                            .getUser()
                            .getUsername()).isEqualTo(testUser.getUsername());
@@ -105,9 +116,9 @@ class OrderControllerTests {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()
-                           .getItems()).isEmpty();
+                           .getLines()).isEmpty();
         assertThat(response.getBody()
-                           .getTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+                           .getTotal()).isEqualByComparingTo(Money.zero());
     }
 
     @Test
@@ -132,7 +143,7 @@ class OrderControllerTests {
         ModifyCartRequest request = new ModifyCartRequest();
         request.setItemId(testItem.getId());
         request.setQuantity(1);
-        ResponseEntity<Cart> cartResponse = cartController.addToCart(request, authentication);
+        ResponseEntity<CartResponse> cartResponse = cartController.addToCart(request, authentication);
         assertThat(cartResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
 
         ResponseEntity<UserOrder> orderResponse = orderController.submit(authentication);
@@ -143,33 +154,60 @@ class OrderControllerTests {
         orderResponse = orderController.submit(authentication);
         assertThat(orderResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
 
-        ResponseEntity<List<UserOrder>> historyResponse = orderController.getOrdersForUser(authentication);
+        ResponseEntity<OrderHistoryPage> historyResponse = history(authentication);
 
         assertThat(historyResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(historyResponse.getBody()).isNotNull();
-        assertThat(historyResponse.getBody()).hasSize(2);
         assertThat(historyResponse.getBody()
+                                  .orders()).hasSize(2)
+                                            .allSatisfy(order -> {
+                                                assertThat(order.lines()).singleElement()
+                                                                         .extracting(OrderLineResponse::itemId)
+                                                                         .isEqualTo(testItem.getId());
+                                                assertThat(order.itemCount()).isEqualTo(order.lines()
+                                                                                             .getFirst()
+                                                                                             .quantity());
+                                            });
+        assertThat(historyResponse.getBody()
+                                  .orders()
                                   .get(0)
-                                  .getUser()
-                                  .getUsername()).isEqualTo(testUser.getUsername());
+                                  .id()).isGreaterThan(historyResponse.getBody()
+                                                                      .orders()
+                                                                      .get(1)
+                                                                      .id());
         assertThat(historyResponse.getBody()
-                                  .get(1)
-                                  .getUser()
-                                  .getUsername()).isEqualTo(testUser.getUsername());
+                                  .nextCursor()).isNull();
+    }
+
+    @Test
+    void testGetOrderHistoryWithUserPrincipal() {
+        Authentication principalAuth = new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(testUser.getId(), testUser.getCart()
+                                                            .getId(), testUser.getUsername()), null,
+                Collections.emptyList());
+        ResponseEntity<UserOrder> orderResponse = orderController.submit(principalAuth);
+        assertThat(orderResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<OrderHistoryPage> historyResponse = history(principalAuth);
+
+        assertThat(historyResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(historyResponse.getBody()
+                                  .orders()).hasSize(1);
     }
 
     @Test
     void testGetOrderHistoryWithNoOrders() {
-        ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(authentication);
+        ResponseEntity<OrderHistoryPage> response = history(authentication);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody()).isEmpty();
+        assertThat(response.getBody()
+                           .orders()).isEmpty();
     }
 
     @Test
     void testGetOrderHistoryWithNoAuthentication() {
-        ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(null);
+        ResponseEntity<OrderHistoryPage> response = history(null);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
     }
@@ -179,8 +217,135 @@ class OrderControllerTests {
         Authentication invalidAuth = new UsernamePasswordAuthenticationToken("nonExistentUser", null,
                 Collections.emptyList());
 
-        ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(invalidAuth);
+        ResponseEntity<OrderHistoryPage> response = history(invalidAuth);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
+
+    @Test
+    void testGetOrderHistoryPagesNewestFirst() {
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orderIds.add(orderController.submit(authentication)
+                                        .getBody()
+                                        .getId());
+        }
+        Collections.reverse(orderIds);
+
+        OrderHistoryPage first = orderController.getOrdersForUser(authentication, null, 2, null, null)
+                                                .getBody();
+        OrderHistoryPage second = orderController.getOrdersForUser(authentication, first.nextCursor(), 2, null, null)
+                                                 .getBody();
+        OrderHistoryPage last = orderController.getOrdersForUser(authentication, second.nextCursor(), 2, null, null)
+                                               .getBody();
+
+        assertThat(first.orders()).extracting(OrderResponse::id)
+                                  .containsExactlyElementsOf(orderIds.subList(0, 2));
+        assertThat(second.orders()).extracting(OrderResponse::id)
+                                   .containsExactlyElementsOf(orderIds.subList(2, 4));
+        assertThat(last.orders()).extracting(OrderResponse::id)
+                                 .containsExactly(orderIds.get(4));
+        assertThat(last.nextCursor()).isNull();
+    }
+
+    @Test
+    void testGetOrderHistoryWithinDateRange() {
+        UserOrder old = orderController.submit(authentication)
+                                       .getBody();
+        old.setCreatedAt(Instant.parse("2020-01-01T00:00:00Z"));
+        UserOrder recent = orderController.submit(authentication)
+                                          .getBody();
+
+        OrderHistoryPage page = orderController.getOrdersForUser(authentication, null, 20,
+                Instant.parse("2021-01-01T00:00:00Z"), null)
+                                               .getBody();
+        OrderHistoryPage before = orderController.getOrdersForUser(authentication, null, 20, null,
+                Instant.parse("2021-01-01T00:00:00Z"))
+                                                 .getBody();
+
+        assertThat(page.orders()).extracting(OrderResponse::id)
+                                 .containsExactly(recent.getId());
+        assertThat(before.orders()).extracting(OrderResponse::id)
+                                   .containsExactly(old.getId());
+    }
+
+    @Test
+    void testGetOrderHistoryRejectsInvalidPageSize() {
+        assertThat(orderController.getOrdersForUser(authentication, null, 0, null, null)
+                                  .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(orderController.getOrdersForUser(authentication, null, OrderController.MAX_HISTORY_PAGE_SIZE + 1,
+                null, null)
+                                  .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testStatsFollowSubmittedOrders() {
+        OrderStatsResponse before = orderController.getStats(authentication)
+                                                   .getBody();
+        assertThat(before).isEqualTo(OrderStatsResponse.empty());
+
+        ModifyCartRequest request = new ModifyCartRequest();
+        request.setItemId(testItem.getId());
+        request.setQuantity(2);
+        cartController.addToCart(request, authentication);
+        orderController.submit(authentication);
+        UserOrder last = orderController.submit(authentication)
+                                        .getBody();
+
+        ResponseEntity<OrderStatsResponse> response = orderController.getStats(authentication);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody()
+                           .orderCount()).isEqualTo(2);
+        assertThat(response.getBody()
+                           .totalSpend()).isEqualTo(testItem.getPrice()
+                                                            .times(4));
+        assertThat(response.getBody()
+                           .lastOrderAt()).isCloseTo(last.getCreatedAt(), within(1, ChronoUnit.MICROS));
+    }
+
+    @Test
+    void testStatsWithNoAuthentication() {
+        assertThat(orderController.getStats(null)
+                                  .getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void testExportStreamsOrdersAsNdjson()
+            throws IOException {
+        UserOrder order = orderController.submit(authentication)
+                                         .getBody();
+
+        ResponseEntity<StreamingResponseBody> response = orderController.export(authentication, "ndjson");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders()
+                           .getContentType()).isEqualTo(OrderExporter.Format.NDJSON.mediaType());
+        assertThat(response.getHeaders()
+                           .getContentDisposition()
+                           .getFilename()).isEqualTo("orders.ndjson");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody()
+                .writeTo(out);
+        assertThat(out.toString(StandardCharsets.UTF_8)).hasLineCount(1)
+                                                        .startsWith("{\"id\":" + order.getId() + ",");
+    }
+
+    @Test
+    void testExportRejectsUnknownFormat() {
+        assertThat(orderController.export(authentication, "xml")
+                                  .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testExportWithNoAuthentication() {
+        assertThat(orderController.export(null, "csv")
+                                  .getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private ResponseEntity<OrderHistoryPage> history(Authentication authentication) {
+        return orderController.getOrdersForUser(authentication, null, OrderController.DEFAULT_HISTORY_PAGE_SIZE, null,
+                null);
+    }
 }
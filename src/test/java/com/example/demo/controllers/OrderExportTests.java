@@ -0,0 +1,153 @@
+package com.example.demo.controllers;
+
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+import com.example.demo.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.requests.*;
+import java.nio.charset.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.autoconfigure.web.servlet.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.security.authentication.*;
+import org.springframework.security.core.*;
+import org.springframework.test.web.servlet.*;
+
+
+/**
+ * Runs the export through the security filter chain, including the second, asynchronous dispatch that writes a
+ * streamed response body.
+ */
+@SpringBootTest(classes = EcommerceApplication.class)
+@AutoConfigureMockMvc
+class OrderExportTests {
+
+    private static final String USERNAME = "exportHttpUser";
+    private static final String PASSWORD = "TestP@ssw0rd";
+
+    private final MockMvc mockMvc;
+    private final UserController userController;
+    private final CartController cartController;
+    private final OrderController orderController;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private User testUser;
+    private Item item;
+    private UserOrder order;
+    private String token;
+
+    @Autowired
+    OrderExportTests(MockMvc mockMvc, UserController userController, CartController cartController,
+            OrderController orderController, UserRepository userRepository, ItemRepository itemRepository,
+            OrderRepository orderRepository, JdbcTemplate jdbcTemplate) {
+        this.mockMvc = mockMvc;
+        this.userController = userController;
+        this.cartController = cartController;
+        this.orderController = orderController;
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @BeforeEach
+    void setUp()
+            throws Exception {
+        CreateUserRequest createUserRequest = new CreateUserRequest();
+        createUserRequest.setUsername(USERNAME);
+        createUserRequest.setPassword(PASSWORD);
+        createUserRequest.setRepeatedPassword(PASSWORD);
+        testUser = userController.createUser(createUserRequest)
+                                 .getBody();
+        item = itemRepository.findAll()
+                             .getFirst();
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(USERNAME, null,
+                Collections.emptyList());
+        ModifyCartRequest request = new ModifyCartRequest();
+        request.setItemId(item.getId());
+        request.setQuantity(2);
+        cartController.addToCart(request, authentication);
+        order = orderController.submit(authentication)
+                               .getBody();
+
+        token = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+                                              .content("{\"username\": \"%s\", \"password\": \"%s\"}".formatted(
+                                                      USERNAME, PASSWORD)))
+                       .andReturn()
+                       .getResponse()
+                       .getHeader(HttpHeaders.AUTHORIZATION);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findByUserId(testUser.getId()));
+        jdbcTemplate.update("delete from user_order_stats where user_id = ?", testUser.getId());
+        userRepository.deleteById(testUser.getId());
+    }
+
+    @Test
+    void testNdjsonExportIsStreamedToAnAuthenticatedCaller()
+            throws Exception {
+        MvcResult result = export("ndjson");
+
+        assertThat(result.getResponse()
+                         .getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(result.getResponse()
+                         .getContentType()).isEqualTo("application/x-ndjson");
+        assertThat(result.getResponse()
+                         .getContentAsString(StandardCharsets.UTF_8)).hasLineCount(1)
+                                                                     .startsWith("{\"id\":" + order.getId() + ",")
+                                                                     .contains("\"itemId\":" + item.getId());
+    }
+
+    @Test
+    void testCsvExportIsStreamedToAnAuthenticatedCaller()
+            throws Exception {
+        MvcResult result = export("csv");
+
+        assertThat(result.getResponse()
+                         .getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(result.getResponse()
+                         .getContentType()).startsWith("text/csv");
+        List<String> rows = result.getResponse()
+                                  .getContentAsString(StandardCharsets.UTF_8)
+                                  .lines()
+                                  .toList();
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(1)).startsWith(order.getId() + ",")
+                               .contains("," + item.getId() + ",")
+                               .contains(",2,");
+    }
+
+    @Test
+    void testExportRequiresAToken()
+            throws Exception {
+        assertThat(mockMvc.perform(get("/api/order/export"))
+                          .andReturn()
+                          .getResponse()
+                          .getStatus()).isEqualTo(HttpStatus.FORBIDDEN.value());
+    }
+
+    private MvcResult export(String format)
+            throws Exception {
+        assertThat(token).isNotNull();
+        MvcResult started = mockMvc.perform(get("/api/order/export").param("format", format)
+                                                                    .header(HttpHeaders.AUTHORIZATION, token))
+                                   .andReturn();
+        assertThat(started.getRequest()
+                          .isAsyncStarted()).isTrue();
+        return mockMvc.perform(asyncDispatch(started))
+                      .andReturn();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.integration;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.controllers.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.requests.*;
+import com.example.demo.model.responses.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.http.*;
+import org.springframework.security.authentication.*;
+import org.springframework.security.core.*;
+
+
+/**
+ * Concurrent updates of the same cart, committed for real, so that the optimistic lock on the cart is exercised.
+ */
+@SpringBootTest(classes = EcommerceApplication.class)
+class CartConcurrencyIntegrationTests {
+
+    private final UserController userController;
+    private final CartController cartController;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+
+    private User testUser;
+    private Authentication authentication;
+
+    @Autowired
+    CartConcurrencyIntegrationTests(UserController userController, CartController cartController,
+            UserRepository userRepository, ItemRepository itemRepository) {
+        this.userController = userController;
+        this.cartController = cartController;
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+    }
+
+    @BeforeEach
+    void setUp() {
+        CreateUserRequest createUserRequest = new CreateUserRequest();
+        createUserRequest.setUsername("concurrentCartUser");
+        createUserRequest.setPassword("TestP@ssw0rd");
+        createUserRequest.setRepeatedPassword("TestP@ssw0rd");
+        testUser = userController.createUser(createUserRequest)
+                                 .getBody();
+        authentication = new UsernamePasswordAuthenticationToken(testUser.getUsername(), null, Collections.emptyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(testUser.getId());
+    }
+
+    @Test
+    void testConcurrentAddsAreNotLost()
+            throws Exception {
+        Item item = itemRepository.findAll()
+                                  .getFirst();
+        ModifyCartRequest request = new ModifyCartRequest();
+        request.setItemId(item.getId());
+        request.setQuantity(1);
+
+        int threads = 4;
+        int addsPerThread = 10;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < addsPerThread; j++) {
+                        if (cartController.addToCart(request, authentication)
+                                          .getStatusCode() == HttpStatus.OK) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        CartResponse cart = cartController.addToCart(request, authentication)
+                                          .getBody();
+        assertThat(cart).isNotNull();
+        assertThat(accepted.get()).isPositive();
+        assertThat(cart.itemCount()).isEqualTo(accepted.get() + 1);
+        assertThat(cart.total()).isEqualByComparingTo(item.getPrice()
+                                                          .times(accepted.get() + 1L));
+    }
+}
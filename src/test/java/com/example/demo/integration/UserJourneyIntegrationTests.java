@@ -6,7 +6,7 @@ import com.example.demo.*;
 import com.example.demo.controllers.*;
 import com.example.demo.model.persistence.*;
 import com.example.demo.model.requests.*;
-import java.math.*;
+import com.example.demo.model.responses.*;
 import java.util.*;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.*;
@@ -72,24 +72,26 @@ class UserJourneyIntegrationTests {
         addRequest.setItemId(item.getId());
         addRequest.setQuantity(2);
 
-        ResponseEntity<Cart> addToCartResponse = cartController.addToCart(addRequest, authentication);
+        ResponseEntity<CartResponse> addToCartResponse = cartController.addToCart(addRequest, authentication);
         assertThat(addToCartResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(addToCartResponse.getBody()).isNotNull();
-        assertThat(addToCartResponse.getBody().getItems()).hasSize(2);
-        assertThat(addToCartResponse.getBody().getTotal()).isEqualTo(item.getPrice().multiply(BigDecimal.valueOf(2)));
+        assertThat(addToCartResponse.getBody().itemCount()).isEqualTo(2);
+        assertThat(addToCartResponse.getBody().total()).isEqualTo(item.getPrice().times(2));
 
         ResponseEntity<UserOrder> orderResponse = orderController.submit(authentication);
         assertThat(orderResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(orderResponse.getBody()).isNotNull();
-        assertThat(orderResponse.getBody().getItems()).hasSize(2);
-        assertThat(orderResponse.getBody().getTotal()).isEqualTo(item.getPrice().multiply(BigDecimal.valueOf(2)));
+        assertThat(orderResponse.getBody().getItemCount()).isEqualTo(2);
+        assertThat(orderResponse.getBody().getTotal()).isEqualTo(item.getPrice().times(2));
         assertThat(orderResponse.getBody().getUser().getUsername()).isEqualTo(testUser.getUsername());
 
-        ResponseEntity<List<UserOrder>> historyResponse = orderController.getOrdersForUser(authentication);
+        ResponseEntity<OrderHistoryPage> historyResponse = orderController.getOrdersForUser(authentication, null, 20,
+                null, null);
         assertThat(historyResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(historyResponse.getBody()).isNotNull();
-        assertThat(historyResponse.getBody()).hasSize(1);
-        assertThat(historyResponse.getBody().getFirst().getUser().getUsername()).isEqualTo(testUser.getUsername());
+        assertThat(historyResponse.getBody().orders()).hasSize(1);
+        assertThat(historyResponse.getBody().orders().getFirst().id()).isEqualTo(orderResponse.getBody().getId());
+        assertThat(historyResponse.getBody().orders().getFirst().itemCount()).isEqualTo(2);
     }
 
     @Test
@@ -105,23 +107,23 @@ class UserJourneyIntegrationTests {
         addRequest.setItemId(item.getId());
         addRequest.setQuantity(3);
 
-        ResponseEntity<Cart> addToCartResponse = cartController.addToCart(addRequest, authentication);
+        ResponseEntity<CartResponse> addToCartResponse = cartController.addToCart(addRequest, authentication);
         assertThat(addToCartResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(addToCartResponse.getBody()).isNotNull();
-        assertThat(addToCartResponse.getBody().getItems()).hasSize(3);
+        assertThat(addToCartResponse.getBody().itemCount()).isEqualTo(3);
 
         ModifyCartRequest removeRequest = new ModifyCartRequest();
         removeRequest.setItemId(item.getId());
         removeRequest.setQuantity(1);
 
-        ResponseEntity<Cart> removeFromCartResponse = cartController.removeFromCart(removeRequest, authentication);
+        ResponseEntity<CartResponse> removeFromCartResponse = cartController.removeFromCart(removeRequest, authentication);
         assertThat(removeFromCartResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(removeFromCartResponse.getBody()).isNotNull();
-        assertThat(removeFromCartResponse.getBody().getItems()).hasSize(2);
+        assertThat(removeFromCartResponse.getBody().itemCount()).isEqualTo(2);
 
         ResponseEntity<UserOrder> orderResponse = orderController.submit(authentication);
         assertThat(orderResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(orderResponse.getBody()).isNotNull();
-        assertThat(orderResponse.getBody().getItems()).hasSize(2);
+        assertThat(orderResponse.getBody().getItemCount()).isEqualTo(2);
     }
 }
\ No newline at end of file
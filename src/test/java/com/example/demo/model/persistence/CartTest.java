@@ -4,7 +4,6 @@ package com.example.demo.model.persistence;
 import static org.assertj.core.api.Assertions.*;
 
 import java.math.*;
-import java.util.*;
 import org.junit.jupiter.api.*;
 
 
@@ -24,13 +23,13 @@ class CartTest {
         item1.setId(1L);
         item1.setName("Item 1");
         item1.setDescription("Description 1");
-        item1.setPrice(BigDecimal.valueOf(10.00));
+        item1.setPrice(Money.of(BigDecimal.valueOf(10.00)));
 
         item2 = new Item();
         item2.setId(2L);
         item2.setName("Item 2");
         item2.setDescription("Description 2");
-        item2.setPrice(BigDecimal.valueOf(20.00));
+        item2.setPrice(Money.of(BigDecimal.valueOf(20.00)));
     }
 
     @Test
@@ -51,7 +50,7 @@ class CartTest {
 
     @Test
     void testGetAndSetTotal() {
-        BigDecimal total = BigDecimal.valueOf(30.00);
+        Money total = Money.of(BigDecimal.valueOf(30.00));
 
         cart.setTotal(total);
 
@@ -59,127 +58,154 @@ class CartTest {
     }
 
     @Test
-    void testGetAndSetItems() {
-        List<Item> items = new ArrayList<>();
-        items.add(item1);
-        items.add(item2);
-
-        cart.setItems(items);
-
-        assertThat(cart.getItems()).containsExactly(item1, item2);
+    void testNewCartHasNoLines() {
+        assertThat(cart.getLines()).isEmpty();
+        assertThat(cart.getItemCount()).isZero();
+        assertThat(cart.getQuantity(item1)).isZero();
     }
 
     @Test
-    void testAddItemToNullItemsList() {
-        cart.setItems(null);
+    void testAddItemWithNullTotal() {
         cart.setTotal(null);
 
         cart.addItem(item1);
 
-        assertThat(cart.getItems()).isNotNull();
-        assertThat(cart.getItems()).hasSize(1);
-        assertThat(cart.getItems()
-                       .getFirst()).isSameAs(item1);
+        assertThat(cart.getLines()).hasSize(1);
+        assertThat(cart.getLines()
+                       .iterator()
+                       .next()
+                       .getItem()).isSameAs(item1);
         assertThat(cart.getTotal()).isEqualByComparingTo(item1.getPrice());
     }
 
     @Test
-    void testAddItemToEmptyItemsList() {
-        cart.setItems(new ArrayList<>());
-        cart.setTotal(BigDecimal.ZERO);
+    void testAddItemWithQuantityCreatesSingleLine() {
+        cart.setTotal(Money.zero());
 
-        cart.addItem(item1);
+        cart.addItem(item1, 5000);
 
-        assertThat(cart.getItems()).hasSize(1);
-        assertThat(cart.getItems()
-                       .getFirst()).isSameAs(item1);
-        assertThat(cart.getTotal()).isEqualByComparingTo(item1.getPrice());
+        assertThat(cart.getLines()).hasSize(1);
+        assertThat(cart.getQuantity(item1)).isEqualTo(5000);
+        assertThat(cart.getItemCount()).isEqualTo(5000);
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(50_000.00)));
     }
 
     @Test
     void testAddMultipleItems() {
-        cart.setItems(new ArrayList<>());
-        cart.setTotal(BigDecimal.ZERO);
+        cart.setTotal(Money.zero());
 
         cart.addItem(item1);
         cart.addItem(item2);
         cart.addItem(item1); // Add duplicate item
 
-        assertThat(cart.getItems()).hasSize(3);
-        assertThat(cart.getItems()).containsExactly(item1, item2, item1);
+        assertThat(cart.getLines()).extracting(CartLine::getItem)
+                                   .containsExactly(item1, item2);
+        assertThat(cart.getQuantity(item1)).isEqualTo(2);
+        assertThat(cart.getQuantity(item2)).isEqualTo(1);
+        assertThat(cart.getItemCount()).isEqualTo(3);
 
-        assertThat(cart.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(40.00));
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(40.00)));
     }
 
     @Test
-    void testRemoveItemFromNullItemsList() {
-        cart.setItems(null);
-        cart.setTotal(null);
+    void testAddItemKeepsUnitPriceOfExistingLine() {
+        cart.addItem(item1);
+        item1.setPrice(Money.of(BigDecimal.valueOf(12.00)));
 
-        cart.removeItem(item1);
+        cart.addItem(item1);
 
-        assertThat(cart.getItems()).isNotNull();
-        assertThat(cart.getItems()).isEmpty();
-        assertThat(cart.getTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(cart.getLines()
+                       .iterator()
+                       .next()
+                       .getUnitPrice()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(10.00)));
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(20.00)));
     }
 
     @Test
-    void testRemoveItemFromEmptyItemsList() {
-        cart.setItems(new ArrayList<>());
+    void testRemoveItemWithNullTotal() {
         cart.setTotal(null);
 
         cart.removeItem(item1);
 
-        assertThat(cart.getItems()).isEmpty();
-        assertThat(cart.getTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(cart.getLines()).isEmpty();
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.zero());
     }
 
     @Test
     void testRemoveExistingItem() {
-        List<Item> items = new ArrayList<>();
-        items.add(item1);
-        items.add(item2);
-        cart.setItems(items);
-        cart.setTotal(BigDecimal.valueOf(30.00));
+        cart.addItem(item1);
+        cart.addItem(item2);
 
         cart.removeItem(item1);
 
-        assertThat(cart.getItems()).hasSize(1);
-        assertThat(cart.getItems()).containsExactly(item2);
-        assertThat(cart.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(20.00));
+        assertThat(cart.getLines()).extracting(CartLine::getItem)
+                                   .containsExactly(item2);
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(20.00)));
     }
 
     @Test
     void testRemoveNonExistingItem() {
-        List<Item> items = new ArrayList<>();
-        items.add(item2);
-        cart.setItems(items);
-        cart.setTotal(BigDecimal.valueOf(20.00));
+        cart.addItem(item2);
 
         Item nonExistingItem = new Item();
         nonExistingItem.setId(3L);
-        nonExistingItem.setPrice(BigDecimal.valueOf(15.00));
+        nonExistingItem.setPrice(Money.of(BigDecimal.valueOf(15.00)));
 
         cart.removeItem(nonExistingItem);
 
-        assertThat(cart.getItems()).hasSize(1);
-        assertThat(cart.getItems()).containsExactly(item2);
-        assertThat(cart.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(20.00));
+        assertThat(cart.getLines()).extracting(CartLine::getItem)
+                                   .containsExactly(item2);
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(20.00)));
     }
 
     @Test
     void testRemoveItemWhenMultipleExist() {
-        List<Item> items = new ArrayList<>();
-        items.add(item1);
-        items.add(item2);
-        items.add(item1); // Add duplicate
-        cart.setItems(items);
-        cart.setTotal(BigDecimal.valueOf(40.00));
+        cart.addItem(item1, 2);
+        cart.addItem(item2);
 
         cart.removeItem(item1);
 
-        assertThat(cart.getItems()).hasSize(2);
-        assertThat(cart.getItems()).containsExactly(item2, item1);
-        assertThat(cart.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(30.00));
+        assertThat(cart.getQuantity(item1)).isEqualTo(1);
+        assertThat(cart.getItemCount()).isEqualTo(2);
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(30.00)));
+    }
+
+    @Test
+    void testRemoveMoreThanQuantityDropsLine() {
+        cart.addItem(item1, 2);
+
+        cart.removeItem(item1, 5);
+
+        assertThat(cart.getLines()).isEmpty();
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.zero());
+    }
+
+    @Test
+    void testReaddingDroppedItemReusesItsLineAtCurrentPrice() {
+        cart.addItem(item1, 2);
+        CartLine line = cart.getLines()
+                            .iterator()
+                            .next();
+        cart.removeItem(item1, 2);
+        item1.setPrice(Money.of(BigDecimal.valueOf(12.00)));
+
+        cart.addItem(item1);
+
+        assertThat(cart.getLines()).containsExactly(line);
+        assertThat(line.getQuantity()).isEqualTo(1);
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(12.00)));
+    }
+
+    @Test
+    void testSetQuantity() {
+        cart.addItem(item1, 2);
+
+        cart.setQuantity(item1, 5);
+        assertThat(cart.getQuantity(item1)).isEqualTo(5);
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(50.00)));
+
+        cart.setQuantity(item1, 0);
+        assertThat(cart.getLines()).isEmpty();
+        assertThat(cart.getTotal()).isEqualByComparingTo(Money.zero());
     }
 }
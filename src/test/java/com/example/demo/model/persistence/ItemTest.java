@@ -17,7 +17,7 @@ class ItemTest {
         item.setId(1L);
         item.setName("Test Item");
         item.setDescription("Test Description");
-        item.setPrice(BigDecimal.valueOf(19.99));
+        item.setPrice(Money.of(BigDecimal.valueOf(19.99)));
     }
 
     @Test
@@ -49,7 +49,7 @@ class ItemTest {
 
     @Test
     void testGetAndSetPrice() {
-        BigDecimal price = BigDecimal.valueOf(29.99);
+        Money price = Money.of(BigDecimal.valueOf(29.99));
 
         item.setPrice(price);
 
@@ -74,7 +74,7 @@ class ItemTest {
         otherItem.setId(1L);
         otherItem.setName("Different Name");
         otherItem.setDescription("Different Description");
-        otherItem.setPrice(BigDecimal.valueOf(99.99));
+        otherItem.setPrice(Money.of(BigDecimal.valueOf(99.99)));
 
         assertThat(item).isEqualTo(otherItem);
     }
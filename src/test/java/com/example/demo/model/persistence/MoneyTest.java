@@ -0,0 +1,71 @@
+package com.example.demo.model.persistence;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.*;
+import java.math.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+
+class MoneyTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    @Test
+    void testOfRoundsToMinorUnits() {
+        assertThat(Money.of(new BigDecimal("2.99")).minorUnits()).isEqualTo(299);
+        assertThat(Money.of(new BigDecimal("2.995")).minorUnits()).isEqualTo(300);
+        assertThat(Money.of(new BigDecimal("2.985")).minorUnits()).isEqualTo(298);
+        assertThat(Money.of(new BigDecimal("2.99")).currency()).isEqualTo(Money.DEFAULT_CURRENCY);
+    }
+
+    @Test
+    void testArithmetic() {
+        Money price = Money.ofMinor(299);
+
+        assertThat(price.times(5000)).isEqualTo(Money.ofMinor(1_495_000));
+        assertThat(price.plus(Money.ofMinor(1))).isEqualTo(Money.ofMinor(300));
+        assertThat(price.minus(price)
+                        .isZero()).isTrue();
+        assertThat(price.toBigDecimal()).isEqualTo(new BigDecimal("2.99"));
+        assertThat(price).hasToString("USD 2.99");
+    }
+
+    @Test
+    void testOverflowIsRejected() {
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE)
+                                      .times(2)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void testCurrencyMismatchIsRejected() {
+        Money euros = new Money(100, EUR);
+
+        assertThatThrownBy(() -> Money.ofMinor(100)
+                                      .plus(euros)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MoneyConverter().convertToDatabaseColumn(euros))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testJsonRoundTrip()
+            throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        assertThat(objectMapper.writeValueAsString(Money.ofMinor(299))).isEqualTo("2.99");
+        assertThat(objectMapper.readValue("2.99", Money.class)).isEqualTo(Money.ofMinor(299));
+        assertThat(objectMapper.readValue("\"2.99\"", Money.class)).isEqualTo(Money.ofMinor(299));
+    }
+
+    @Test
+    void testConverterRoundTrip() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertThat(converter.convertToDatabaseColumn(Money.ofMinor(199))).isEqualTo(new BigDecimal("1.99"));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("1.99"))).isEqualTo(Money.ofMinor(199));
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
@@ -26,13 +26,13 @@ class UserOrderTest {
         item1.setId(1L);
         item1.setName("Item 1");
         item1.setDescription("Description 1");
-        item1.setPrice(BigDecimal.valueOf(10.00));
+        item1.setPrice(Money.of(BigDecimal.valueOf(10.00)));
 
         Item item2 = new Item();
         item2.setId(2L);
         item2.setName("Item 2");
         item2.setDescription("Description 2");
-        item2.setPrice(BigDecimal.valueOf(20.00));
+        item2.setPrice(Money.of(BigDecimal.valueOf(20.00)));
 
         items = new ArrayList<>();
         items.add(item1);
@@ -41,8 +41,8 @@ class UserOrderTest {
         cart = new Cart();
         cart.setId(1L);
         cart.setUser(user);
-        cart.setItems(items);
-        cart.setTotal(BigDecimal.valueOf(30.00));
+        cart.addItem(item1);
+        cart.addItem(item2);
 
         user.setCart(cart);
     }
@@ -64,15 +64,29 @@ class UserOrderTest {
     }
 
     @Test
-    void testGetAndSetItems() {
-        userOrder.setItems(items);
-
-        assertThat(userOrder.getItems()).isSameAs(items);
+    void testAddLineSnapshotsItem() {
+        Item item = items.getFirst();
+
+        userOrder.addLine(item, 3);
+        item.setName("Renamed");
+        item.setPrice(Money.of(BigDecimal.valueOf(99.00)));
+
+        assertThat(userOrder.getLines()).singleElement()
+                                        .satisfies(line -> {
+                                            assertThat(line.getItemId()).isEqualTo(1L);
+                                            assertThat(line.getName()).isEqualTo("Item 1");
+                                            assertThat(line.getUnitPrice()).isEqualByComparingTo(
+                                                    Money.of(BigDecimal.valueOf(10.00)));
+                                            assertThat(line.getQuantity()).isEqualTo(3);
+                                            assertThat(line.getLineTotal()).isEqualByComparingTo(
+                                                    Money.of(BigDecimal.valueOf(30.00)));
+                                        });
+        assertThat(userOrder.getItemCount()).isEqualTo(3);
     }
 
     @Test
     void testGetAndSetTotal() {
-        BigDecimal total = BigDecimal.valueOf(30.00);
+        Money total = Money.of(BigDecimal.valueOf(30.00));
 
         userOrder.setTotal(total);
 
@@ -87,48 +101,40 @@ class UserOrderTest {
         assertThat(createdOrder.getUser()).isSameAs(user);
         assertThat(createdOrder.getTotal()).isEqualByComparingTo(cart.getTotal());
 
-        assertThat(createdOrder.getItems()).isNotSameAs(cart.getItems());
-        assertThat(createdOrder.getItems()).hasSize(2);
-        assertThat(createdOrder.getItems()).containsExactlyElementsOf(cart.getItems());
+        assertThat(createdOrder.getLines()).extracting(OrderLine::getItemId, OrderLine::getQuantity)
+                                           .containsExactly(tuple(1L, 1), tuple(2L, 1));
+        assertThat(createdOrder.getLines()).allMatch(line -> line.getOrder() == createdOrder);
     }
 
     @Test
     void testCreateFromCartWithEmptyItemsList() {
-        cart.setItems(new ArrayList<>());
-        cart.setTotal(BigDecimal.ZERO);
+        cart = new Cart();
+        cart.setUser(user);
+        cart.setTotal(Money.zero());
 
         UserOrder createdOrder = UserOrder.createFromCart(cart);
 
         assertThat(createdOrder).isNotNull();
-        assertThat(createdOrder.getItems()).isEmpty();
-        assertThat(createdOrder.getTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(createdOrder.getLines()).isEmpty();
+        assertThat(createdOrder.getTotal()).isEqualByComparingTo(Money.zero());
     }
 
     @Test
     void testCreateFromCartWithNullProperties() {
         Cart emptyCart = new Cart();
 
-        Throwable thrown = catchThrowable(() -> UserOrder.createFromCart(emptyCart));
+        UserOrder createdOrder = UserOrder.createFromCart(emptyCart);
 
-        assertThat(thrown).isInstanceOf(NullPointerException.class)
-                          .hasMessageContaining(
-                                  "Cannot invoke \"java.util.Collection.toArray()\"");
+        assertThat(createdOrder.getLines()).isEmpty();
+        assertThat(createdOrder.getTotal()).isNull();
+        assertThat(createdOrder.getUser()).isNull();
     }
 
     @Test
     void testUserOrderWithNullProperties() {
         assertThat(userOrder.getId()).isNull();
-        assertThat(userOrder.getItems()).isNull();
+        assertThat(userOrder.getLines()).isEmpty();
         assertThat(userOrder.getUser()).isNull();
         assertThat(userOrder.getTotal()).isNull();
     }
-
-    @Test
-    void testUserOrderWithEmptyItemsList() {
-        List<Item> emptyItems = new ArrayList<>();
-
-        userOrder.setItems(emptyItems);
-
-        assertThat(userOrder.getItems()).isEmpty();
-    }
 }
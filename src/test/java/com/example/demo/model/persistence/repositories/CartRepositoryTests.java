@@ -35,14 +35,13 @@ class CartRepositoryTests {
 
         cart = new Cart();
         cart.setUser(user);
-        cart.setTotal(BigDecimal.ZERO);
-        cart.setItems(new ArrayList<>());
+        cart.setTotal(Money.zero());
 
         user.setCart(cart);
 
         item = new Item();
         item.setName("Test Item");
-        item.setPrice(BigDecimal.valueOf(19.99));
+        item.setPrice(Money.of(BigDecimal.valueOf(19.99)));
         item.setDescription("Test item description");
 
         entityManager.persist(item);
@@ -74,7 +73,7 @@ class CartRepositoryTests {
     @Test
     void saveShouldPersistCart() {
         Cart newCart = new Cart();
-        newCart.setTotal(BigDecimal.valueOf(29.99));
+        newCart.setTotal(Money.of(BigDecimal.valueOf(29.99)));
 
         User newUser = new User();
         newUser.setUsername("newUser");
@@ -82,14 +81,13 @@ class CartRepositoryTests {
         newUser.setCart(newCart);
 
         newCart.setUser(newUser);
-        newCart.setItems(new ArrayList<>());
 
         entityManager.persist(newUser);
 
         Cart savedCart = cartRepository.save(newCart);
 
         assertThat(savedCart).isNotNull();
-        assertThat(savedCart.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(29.99));
+        assertThat(savedCart.getTotal()).isEqualByComparingTo(Money.of(BigDecimal.valueOf(29.99)));
         assertThat(savedCart.getUser()).isNotNull();
         assertThat(savedCart.getUser().getUsername()).isEqualTo("newUser");
     }
@@ -121,7 +119,7 @@ class CartRepositoryTests {
                                          .orElse(null);
 
         assertThat(updatedCart).isNotNull();
-        assertThat(updatedCart.getItems()).hasSize(1);
+        assertThat(updatedCart.getLines()).hasSize(1);
         assertThat(updatedCart.getTotal()).isEqualByComparingTo(item.getPrice());
     }
 
@@ -136,7 +134,29 @@ class CartRepositoryTests {
                                          .orElse(null);
 
         assertThat(updatedCart).isNotNull();
-        assertThat(updatedCart.getItems()).isEmpty();
-        assertThat(updatedCart.getTotal()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(updatedCart.getLines()).isEmpty();
+        assertThat(updatedCart.getTotal()).isEqualByComparingTo(Money.zero());
+    }
+
+    @Test
+    void quantityIsStoredOnASingleLine() {
+        cart.addItem(item, 5000);
+        cartRepository.save(cart);
+        entityManager.flush();
+        entityManager.clear();
+
+        Cart reloaded = cartRepository.findById(cart.getId())
+                                      .orElseThrow();
+        reloaded.addItem(item, 2);
+        cartRepository.save(reloaded);
+        entityManager.flush();
+        entityManager.clear();
+
+        Cart updatedCart = cartRepository.findById(cart.getId())
+                                         .orElseThrow();
+        assertThat(updatedCart.getLines()).hasSize(1);
+        assertThat(updatedCart.getQuantity(item)).isEqualTo(5002);
+        assertThat(updatedCart.getTotal()).isEqualByComparingTo(item.getPrice()
+                                                                    .times(5002));
     }
 }
@@ -30,7 +30,7 @@ class ItemRepositoryTests {
     void setUp() {
         item = new Item();
         item.setName("Test Item");
-        item.setPrice(BigDecimal.valueOf(19.99));
+        item.setPrice(Money.of(BigDecimal.valueOf(19.99)));
         item.setDescription("Test item description");
 
         entityManager.persist(item);
@@ -59,7 +59,7 @@ class ItemRepositoryTests {
     void saveShouldPersistItem() {
         Item newItem = new Item();
         newItem.setName("New Item");
-        newItem.setPrice(BigDecimal.valueOf(29.99));
+        newItem.setPrice(Money.of(BigDecimal.valueOf(29.99)));
         newItem.setDescription("New item description");
 
         Item savedItem = itemRepository.save(newItem);
@@ -33,15 +33,16 @@ class OrderRepositoryTests {
 
         item = new Item();
         item.setName("Order Item");
-        item.setPrice(BigDecimal.valueOf(10.00));
+        item.setPrice(Money.of(BigDecimal.valueOf(10.00)));
         item.setDescription("Order item description");
 
+        entityManager.persist(item);
+
         order = new UserOrder();
         order.setUser(user);
-        order.setItems(List.of(item));
+        order.addLine(item, 1);
         order.setTotal(item.getPrice());
 
-        entityManager.persist(item);
         entityManager.persist(user);
         entityManager.persist(order);
         entityManager.flush();
@@ -67,14 +68,19 @@ class OrderRepositoryTests {
     void saveShouldPersistOrder() {
         UserOrder newOrder = new UserOrder();
         newOrder.setUser(user);
-        newOrder.setItems(List.of(item));
-        newOrder.setTotal(BigDecimal.valueOf(20.00));
+        newOrder.addLine(item, 2);
+        newOrder.setTotal(Money.of(BigDecimal.valueOf(20.00)));
 
         UserOrder savedOrder = orderRepository.save(newOrder);
 
         assertThat(savedOrder.getId()).isNotNull();
         assertThat(savedOrder.getUser()).isEqualTo(user);
-        assertThat(savedOrder.getItems()).contains(item);
+        assertThat(savedOrder.getLines()).singleElement()
+                                         .satisfies(line -> {
+                                             assertThat(line.getId()).isNotNull();
+                                             assertThat(line.getItemId()).isEqualTo(item.getId());
+                                             assertThat(line.getQuantity()).isEqualTo(2);
+                                         });
     }
 
     @Test
@@ -3,7 +3,6 @@ package com.example.demo.model.persistence.repositories;
 import static org.assertj.core.api.Assertions.*;
 
 import com.example.demo.model.persistence.*;
-import java.math.*;
 import java.util.*;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.*;
@@ -31,8 +30,7 @@ class UserRepositoryTests {
 
         Cart cart = new Cart();
         cart.setUser(user);
-        cart.setTotal(BigDecimal.ZERO);
-        cart.setItems(new ArrayList<>());
+        cart.setTotal(Money.zero());
 
         user.setCart(cart);
 
@@ -74,8 +72,7 @@ class UserRepositoryTests {
 
         Cart newCart = new Cart();
         newCart.setUser(newUser);
-        newCart.setTotal(BigDecimal.ZERO);
-        newCart.setItems(new ArrayList<>());
+        newCart.setTotal(Money.zero());
         newUser.setCart(newCart);
 
         User savedUser = userRepository.save(newUser);
@@ -0,0 +1,137 @@
+package com.example.demo.order;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.responses.*;
+import com.fasterxml.jackson.databind.*;
+import jakarta.persistence.*;
+import java.io.*;
+import java.math.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.transaction.*;
+import org.springframework.transaction.annotation.*;
+
+
+@SpringBootTest(classes = EcommerceApplication.class)
+@Transactional
+class OrderExporterTests {
+
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    private User user;
+    private Item item;
+    private Item quoted;
+
+    @Autowired
+    OrderExporterTests(UserRepository userRepository, ItemRepository itemRepository, OrderRepository orderRepository,
+            EntityManager entityManager, PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.orderRepository = orderRepository;
+        this.entityManager = entityManager;
+        this.transactionManager = transactionManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("exportUser");
+        user.setPassword("password");
+        userRepository.save(user);
+        item = itemRepository.findAll()
+                             .getFirst();
+        quoted = new Item();
+        quoted.setName("Widget, \"large\"");
+        quoted.setDescription("Item with a name that needs quoting in CSV");
+        quoted.setPrice(Money.of(BigDecimal.valueOf(1.50)));
+        itemRepository.save(quoted);
+    }
+
+    @Test
+    void testNdjsonHasOneOrderPerLineAcrossClears()
+            throws IOException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(order(i + 1).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        String[] lines = export(OrderExporter.Format.NDJSON, 2).split("\\n");
+
+        assertThat(lines).hasSize(5);
+        for (int i = 0; i < lines.length; i++) {
+            OrderResponse order = objectMapper.readValue(lines[i], OrderResponse.class);
+            assertThat(order.id()).isEqualTo(ids.get(i));
+            assertThat(order.lines()).extracting(OrderLineResponse::itemId)
+                                     .containsExactly(item.getId(), quoted.getId());
+            assertThat(order.itemCount()).isEqualTo(i + 2);
+        }
+    }
+
+    @Test
+    void testCsvHasOneRowPerOrderLine()
+            throws IOException {
+        UserOrder order = order(2);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String> rows = export(OrderExporter.Format.CSV, 500).lines()
+                                                                   .toList();
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.getFirst()).startsWith("order_id,");
+        assertThat(rows.get(1)).startsWith(order.getId() + ",")
+                               .endsWith("," + item.getId() + "," + item.getName() + ","
+                                       + item.getPrice()
+                                             .toBigDecimal()
+                                             .toPlainString() + ",2," + item.getPrice()
+                                                                            .times(2)
+                                                                            .toBigDecimal()
+                                                                            .toPlainString());
+        assertThat(rows.get(2)).contains(",\"Widget, \"\"large\"\"\",1.50,1,1.50");
+    }
+
+    @Test
+    void testExportWithNoOrdersIsEmpty()
+            throws IOException {
+        assertThat(export(OrderExporter.Format.NDJSON, 500)).isEmpty();
+        assertThat(export(OrderExporter.Format.CSV, 500)).hasLineCount(1);
+    }
+
+    private String export(OrderExporter.Format format, int clearInterval)
+            throws IOException {
+        OrderExporter exporter = new OrderExporter(orderRepository, entityManager, transactionManager, objectMapper,
+                clearInterval);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(user.getId(), format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private UserOrder order(int quantity) {
+        UserOrder order = new UserOrder();
+        order.setUser(user);
+        order.addLine(item, quantity);
+        order.addLine(quoted, 1);
+        order.setTotal(item.getPrice()
+                           .times(quantity)
+                           .plus(quoted.getPrice()));
+        order.setCreatedAt(Instant.now());
+        return orderRepository.save(order);
+    }
+}
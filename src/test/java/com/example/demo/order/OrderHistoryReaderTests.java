@@ -0,0 +1,118 @@
+package com.example.demo.order;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.responses.*;
+import jakarta.persistence.*;
+import java.math.*;
+import org.hibernate.*;
+import org.hibernate.stat.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.transaction.annotation.*;
+
+
+@SpringBootTest(classes = EcommerceApplication.class,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class OrderHistoryReaderTests {
+
+    private final OrderHistoryReader orderHistoryReader;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    private User user;
+    private Item item;
+    private Item other;
+
+    @Autowired
+    OrderHistoryReaderTests(OrderHistoryReader orderHistoryReader, UserRepository userRepository,
+            ItemRepository itemRepository, OrderRepository orderRepository, EntityManager entityManager,
+            EntityManagerFactory entityManagerFactory) {
+        this.orderHistoryReader = orderHistoryReader;
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.orderRepository = orderRepository;
+        this.entityManager = entityManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class)
+                                              .getStatistics();
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("historyReaderUser");
+        user.setPassword("password");
+        userRepository.save(user);
+        item = itemRepository.findAll()
+                             .getFirst();
+        other = new Item();
+        other.setName("History Item");
+        other.setDescription("Item for the order history tests");
+        other.setPrice(Money.of(BigDecimal.valueOf(2.25)));
+        itemRepository.save(other);
+    }
+
+    @Test
+    void testPageCostsTwoStatementsWhateverTheOrderCount() {
+        placeOrders(3);
+        long fewOrders = statementsToRead(100);
+
+        placeOrders(40);
+        long manyOrders = statementsToRead(100);
+
+        assertThat(fewOrders).isEqualTo(2);
+        assertThat(manyOrders).isEqualTo(fewOrders);
+    }
+
+    @Test
+    void testPageHoldsLinesOfEachOrder() {
+        placeOrders(3);
+        entityManager.flush();
+        entityManager.clear();
+
+        OrderHistoryPage page = orderHistoryReader.read(user.getId(), null, null, null, 2);
+
+        assertThat(page.orders()).hasSize(2)
+                                 .allSatisfy(order -> {
+                                     assertThat(order.itemCount()).isEqualTo(3);
+                                     assertThat(order.total()).isEqualTo(item.getPrice()
+                                                                             .times(2)
+                                                                             .plus(other.getPrice()));
+                                     assertThat(order.lines()).extracting(OrderLineResponse::itemId)
+                                                              .containsExactly(item.getId(), other.getId());
+                                 });
+        assertThat(page.nextCursor()).isEqualTo(page.orders()
+                                                    .getLast()
+                                                    .id());
+    }
+
+    private long statementsToRead(int limit) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        orderHistoryReader.read(user.getId(), null, null, null, limit);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void placeOrders(int count) {
+        for (int i = 0; i < count; i++) {
+            UserOrder order = new UserOrder();
+            order.setUser(user);
+            order.addLine(item, 2);
+            order.addLine(other, 1);
+            order.setTotal(item.getPrice()
+                               .times(2)
+                               .plus(other.getPrice()));
+            orderRepository.save(order);
+        }
+    }
+}
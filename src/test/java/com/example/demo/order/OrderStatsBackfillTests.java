@@ -0,0 +1,95 @@
+package com.example.demo.order;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import java.math.*;
+import java.time.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.namedparam.*;
+import org.springframework.transaction.annotation.*;
+import org.springframework.transaction.support.*;
+
+
+@SpringBootTest(classes = EcommerceApplication.class)
+@Transactional
+class OrderStatsBackfillTests {
+
+    private final UserRepository userRepository;
+    private final OrderRepository orderRepository;
+    private final UserOrderStatsRepository userOrderStatsRepository;
+    private final NamedParameterJdbcOperations jdbcOperations;
+    private final TransactionOperations transactionOperations;
+
+    private Item item;
+
+    @Autowired
+    OrderStatsBackfillTests(UserRepository userRepository, OrderRepository orderRepository,
+            UserOrderStatsRepository userOrderStatsRepository, ItemRepository itemRepository,
+            NamedParameterJdbcOperations jdbcOperations, TransactionOperations transactionOperations) {
+        this.userRepository = userRepository;
+        this.orderRepository = orderRepository;
+        this.userOrderStatsRepository = userOrderStatsRepository;
+        this.jdbcOperations = jdbcOperations;
+        this.transactionOperations = transactionOperations;
+        this.item = itemRepository.findAll()
+                                  .getFirst();
+    }
+
+    @Test
+    void testBackfillRebuildsStatsFromOrders() {
+        User buyer = user("backfillBuyer");
+        User idle = user("backfillIdle");
+        Instant last = Instant.parse("2024-05-01T10:00:00Z");
+        order(buyer, 2, Instant.parse("2024-01-01T10:00:00Z"));
+        order(buyer, 1, last);
+        orderRepository.flush();
+
+        int rows = new OrderStatsBackfill(jdbcOperations, transactionOperations, 1).backfill();
+
+        assertThat(rows).isGreaterThanOrEqualTo(1);
+        assertThat(userOrderStatsRepository.findById(buyer.getId())).hasValueSatisfying(stats -> {
+            assertThat(stats.getOrderCount()).isEqualTo(2);
+            assertThat(stats.getTotalSpend()).isEqualTo(item.getPrice()
+                                                            .times(3));
+            assertThat(stats.getLastOrderAt()).isEqualTo(last);
+        });
+        assertThat(userOrderStatsRepository.findById(idle.getId())).isEmpty();
+    }
+
+    @Test
+    void testBackfillIsRepeatable() {
+        User buyer = user("backfillRepeat");
+        order(buyer, 1, Instant.now());
+        orderRepository.flush();
+        OrderStatsBackfill backfill = new OrderStatsBackfill(jdbcOperations, transactionOperations, 500);
+
+        backfill.backfill();
+        backfill.backfill();
+
+        assertThat(userOrderStatsRepository.findById(buyer.getId())).hasValueSatisfying(
+                stats -> assertThat(stats.getOrderCount()).isEqualTo(1));
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+
+    private void order(User user, int quantity, Instant createdAt) {
+        UserOrder order = new UserOrder();
+        order.setUser(user);
+        order.addLine(item, quantity);
+        order.setTotal(item.getPrice()
+                           .times(quantity));
+        order.setCreatedAt(createdAt);
+        orderRepository.save(order);
+    }
+}
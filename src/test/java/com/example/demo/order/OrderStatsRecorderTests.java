@@ -0,0 +1,90 @@
+package com.example.demo.order;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import java.math.*;
+import java.time.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.transaction.support.*;
+
+
+@SpringBootTest(classes = EcommerceApplication.class)
+class OrderStatsRecorderTests {
+
+    private final OrderStatsRecorder orderStatsRecorder;
+    private final UserRepository userRepository;
+    private final UserOrderStatsRepository userOrderStatsRepository;
+    private final TransactionOperations transactionOperations;
+    private final JdbcOperations jdbcOperations;
+
+    private long userId;
+
+    @Autowired
+    OrderStatsRecorderTests(OrderStatsRecorder orderStatsRecorder, UserRepository userRepository,
+            UserOrderStatsRepository userOrderStatsRepository, TransactionOperations transactionOperations,
+            JdbcOperations jdbcOperations) {
+        this.orderStatsRecorder = orderStatsRecorder;
+        this.userRepository = userRepository;
+        this.userOrderStatsRepository = userOrderStatsRepository;
+        this.transactionOperations = transactionOperations;
+        this.jdbcOperations = jdbcOperations;
+    }
+
+    @BeforeEach
+    void setUp() {
+        userId = userRepository.save(new User().setUsername("statsRecorderUser")
+                                               .setPassword("unused"))
+                               .getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcOperations.update("delete from user_order_stats where user_id = ?", userId);
+        userRepository.deleteById(userId);
+    }
+
+    @Test
+    void testConcurrentFirstOrdersOfAUserAreBothCounted()
+            throws Exception {
+        Money total = Money.of(BigDecimal.valueOf(4.00));
+        Instant first = Instant.parse("2026-01-01T10:00:00Z");
+        Instant second = Instant.parse("2026-01-01T10:00:01Z");
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<?> winner = executor.submit(() -> transactionOperations.executeWithoutResult(status -> {
+                orderStatsRecorder.record(userId, total, first);
+                recorded.countDown();
+                try {
+                    commit.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread()
+                          .interrupt();
+                }
+            }));
+            assertThat(recorded.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<?> loser = executor.submit(() -> transactionOperations.executeWithoutResult(
+                    status -> orderStatsRecorder.record(userId, total, second)));
+            Thread.sleep(100);
+            commit.countDown();
+
+            winner.get(5, TimeUnit.SECONDS);
+            loser.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(userOrderStatsRepository.findById(userId)).hasValueSatisfying(stats -> {
+            assertThat(stats.getOrderCount()).isEqualTo(2);
+            assertThat(stats.getTotalSpend()).isEqualTo(total.times(2));
+            assertThat(stats.getLastOrderAt()).isEqualTo(second);
+        });
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.demo.order;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.example.demo.*;
+import com.example.demo.cart.*;
+import com.example.demo.controllers.*;
+import com.example.demo.model.persistence.*;
+import com.example.demo.model.persistence.repositories.*;
+import com.example.demo.model.requests.*;
+import com.example.demo.model.responses.*;
+import io.micrometer.core.instrument.simple.*;
+import jakarta.persistence.*;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.*;
+import org.springframework.security.authentication.*;
+import org.springframework.security.core.*;
+import org.springframework.transaction.*;
+
+
+@SpringBootTest(classes = EcommerceApplication.class)
+class OrderSubmissionQueueTests {
+
+    private final OrderController orderController;
+    private final CartStore cartStore;
+    private final CartController cartController;
+    private final UserController userController;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private User testUser;
+    private Item item;
+    private Authentication authentication;
+
+    @Autowired
+    OrderSubmissionQueueTests(OrderController orderController, CartStore cartStore, CartController cartController,
+            UserController userController, UserRepository userRepository, ItemRepository itemRepository,
+            OrderRepository orderRepository, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory) {
+        this.orderController = orderController;
+        this.cartStore = cartStore;
+        this.cartController = cartController;
+        this.userController = userController;
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @BeforeEach
+    void setUp() {
+        testUser = createUser("asyncOrderUser");
+        item = itemRepository.findAll()
+                             .getFirst();
+        authentication = new UsernamePasswordAuthenticationToken(testUser.getUsername(), null,
+                Collections.emptyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll(orderRepository.findByUserId(testUser.getId()));
+        jdbcTemplate.update("delete from user_order_stats where user_id = ?", testUser.getId());
+        userRepository.deleteById(testUser.getId());
+    }
+
+    @Test
+    void testQueuedOrderIsWrittenAndReportedCompleted()
+            throws InterruptedException {
+        ModifyCartRequest request = new ModifyCartRequest();
+        request.setItemId(item.getId());
+        request.setQuantity(3);
+        cartController.addToCart(request, authentication);
+
+        ResponseEntity<OrderStatusResponse> response = orderController.submitAsync(authentication);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getBody()).isNotNull();
+        long orderId = response.getBody()
+                               .orderId();
+        assertThat(response.getHeaders()
+                           .getLocation()).hasPath("/api/order/" + orderId + "/status");
+
+        assertThat(awaitStatus(orderId)).isEqualTo(OrderStatusResponse.Status.COMPLETED);
+        Integer quantity = jdbcTemplate.queryForObject(
+                "select quantity from order_lines where order_id = ? and item_id = ?", Integer.class, orderId,
+                item.getId());
+        assertThat(quantity).isEqualTo(3);
+        assertThat(orderController.getStats(authentication)
+                                  .getBody()
+                                  .orderCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testStatusOfUnknownOrForeignOrderIsNotFound()
+            throws InterruptedException {
+        assertThat(orderController.getStatus(Long.MAX_VALUE, authentication)
+                                  .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        User other = createUser("asyncOrderOtherUser");
+        try {
+            Authentication otherUser = new UsernamePasswordAuthenticationToken(other.getUsername(), null,
+                    Collections.emptyList());
+            assertThat(orderController.getStatus(Long.MAX_VALUE, otherUser)
+                                      .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+            ModifyCartRequest request = new ModifyCartRequest();
+            request.setItemId(item.getId());
+            request.setQuantity(1);
+            cartController.addToCart(request, authentication);
+            long orderId = orderController.submitAsync(authentication)
+                                          .getBody()
+                                          .orderId();
+            assertThat(orderController.getStatus(orderId, otherUser)
+                                      .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+            assertThat(awaitStatus(orderId)).isEqualTo(OrderStatusResponse.Status.COMPLETED);
+            assertThat(orderController.getStatus(orderId, otherUser)
+                                      .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        } finally {
+            userRepository.deleteById(other.getId());
+        }
+    }
+
+    /**
+     * A fresh queue takes a new block of order ids, and enough synchronous orders follow to make Hibernate take the
+     * next one. The queued orders before and after must not collide with the synchronous ones.
+     */
+    @Test
+    void testSynchronousAndQueuedOrdersGetDistinctIds()
+            throws InterruptedException {
+        ModifyCartRequest request = new ModifyCartRequest();
+        request.setItemId(item.getId());
+        request.setQuantity(1);
+        cartController.addToCart(request, authentication);
+        Cart cart = cartStore.get(testUser.getCart()
+                                          .getId());
+        OrderSubmissionQueue queue = new OrderSubmissionQueue(jdbcTemplate, transactionManager, entityManagerFactory,
+                new OrderStatsRecorder(jdbcTemplate), new SimpleMeterRegistry(), 10, 10, Duration.ofHours(1));
+        queue.start();
+        try {
+            List<Long> queued = new ArrayList<>();
+            queued.add(queue.submit(cart));
+            for (int i = 0; i < UserOrder.ID_ALLOCATION_SIZE + 10; i++) {
+                assertThat(orderController.submit(authentication)
+                                          .getStatusCode()).isEqualTo(HttpStatus.OK);
+            }
+            queued.add(queue.submit(cart));
+
+            for (long orderId : queued) {
+                long deadline = System.nanoTime() + 5_000_000_000L;
+                while (queue.status(orderId, testUser.getId()) == OrderStatusResponse.Status.QUEUED
+                        && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertThat(queue.status(orderId, testUser.getId())).isEqualTo(
+                        OrderStatusResponse.Status.COMPLETED);
+            }
+            assertThat(orderRepository.findByUserId(testUser.getId())).hasSize(UserOrder.ID_ALLOCATION_SIZE + 12);
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testFailedOrdersAreForgottenAfterTheRetention()
+            throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderSubmissionQueue queue = new OrderSubmissionQueue(jdbcTemplate, transactionManager, entityManagerFactory,
+                new OrderStatsRecorder(jdbcTemplate), meterRegistry, 10, 10, Duration.ZERO);
+        User unknown = new User();
+        unknown.setId(Long.MAX_VALUE);
+        Cart cart = new Cart();
+        cart.setUser(unknown);
+        cart.addItem(item, 1);
+        queue.start();
+        try {
+            long orderId = queue.submit(cart);
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (queue.status(orderId, unknown.getId()) != null && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(meterRegistry.get("order.submit.failed")
+                                    .counter()
+                                    .count()).isEqualTo(1);
+            assertThat(queue.status(orderId, unknown.getId())).isNull();
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testEmptyCartIsRejectedBeforeQueueing() {
+        assertThat(orderController.submitAsync(authentication)
+                                  .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(orderRepository.findByUserId(testUser.getId())).isEmpty();
+    }
+
+    @Test
+    void testSubmitWithNoAuthentication() {
+        assertThat(orderController.submitAsync(null)
+                                  .getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void testFullQueueRejectsOrders() {
+        OrderSubmissionQueue queue = new OrderSubmissionQueue(jdbcTemplate, transactionManager, entityManagerFactory,
+                new OrderStatsRecorder(jdbcTemplate), new SimpleMeterRegistry(), 1, 10, Duration.ofHours(1));
+        Cart cart = new Cart();
+        cart.setUser(testUser);
+        cart.addItem(item, 1);
+
+        long orderId = queue.submit(cart);
+
+        assertThatThrownBy(() -> queue.submit(cart)).isInstanceOf(OrderQueueFullException.class);
+        assertThat(queue.status(orderId, testUser.getId())).isEqualTo(OrderStatusResponse.Status.QUEUED);
+    }
+
+    private User createUser(String username) {
+        CreateUserRequest createUserRequest = new CreateUserRequest();
+        createUserRequest.setUsername(username);
+        createUserRequest.setPassword("TestP@ssw0rd");
+        createUserRequest.setRepeatedPassword("TestP@ssw0rd");
+        return userController.createUser(createUserRequest)
+                             .getBody();
+    }
+
+    private OrderStatusResponse.Status awaitStatus(long orderId)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        OrderStatusResponse.Status status;
+        do {
+            status = orderController.getStatus(orderId, authentication)
+                                    .getBody()
+                                    .status();
+            if (status != OrderStatusResponse.Status.QUEUED) {
+                return status;
+            }
+            Thread.sleep(10);
+        } while (System.nanoTime() < deadline);
+        return status;
+    }
+}
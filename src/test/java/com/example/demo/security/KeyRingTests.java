@@ -0,0 +1,107 @@
+package com.example.demo.security;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.auth0.jwt.*;
+import com.auth0.jwt.exceptions.*;
+import com.auth0.jwt.interfaces.*;
+import java.security.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+
+class KeyRingTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"HS256", "HS512", "ES256", "EdDSA"})
+    void testSignAndVerify(String algorithm)
+            throws GeneralSecurityException {
+        KeyRing keyRing = new KeyRing(new JwtKeyRingProperties("key-1", List.of(key("key-1", algorithm))));
+
+        String token = JWT.create()
+                          .withKeyId(keyRing.activeKey()
+                                            .id())
+                          .withSubject("user1")
+                          .sign(keyRing.activeKey()
+                                       .algorithm());
+        DecodedJWT jwt = keyRing.verifier(JWT.decode(token)
+                                             .getKeyId())
+                                .verify(token);
+
+        assertThat(jwt.getAlgorithm()).isEqualTo(algorithm);
+        assertThat(jwt.getKeyId()).isEqualTo("key-1");
+        assertThat(jwt.getSubject()).isEqualTo("user1");
+    }
+
+    @Test
+    void testDefaultsToHs512WithBuiltInSecret() {
+        KeyRing keyRing = new KeyRing(new JwtKeyRingProperties(null, null));
+
+        assertThat(keyRing.activeKey()
+                          .id()).isEqualTo(KeyRing.DEFAULT_KEY_ID);
+        assertThat(keyRing.activeKey()
+                          .algorithm()
+                          .getName()).isEqualTo("HS512");
+    }
+
+    @Test
+    void testTokensOfRetiredKeyStillVerifyAfterRotation()
+            throws GeneralSecurityException {
+        JwtKeyRingProperties.Key oldKey = key("old", "EdDSA");
+        KeyRing before = new KeyRing(new JwtKeyRingProperties("old", List.of(oldKey)));
+        String token = JWT.create()
+                          .withKeyId("old")
+                          .withSubject("user1")
+                          .sign(before.activeKey()
+                                      .algorithm());
+
+        JwtKeyRingProperties.Key retiredKey = new JwtKeyRingProperties.Key("old", "EdDSA", null, null,
+                oldKey.publicKey());
+        KeyRing after = new KeyRing(new JwtKeyRingProperties("new", List.of(key("new", "ES256"), retiredKey)));
+
+        assertThat(after.verifier("old")
+                        .verify(token)
+                        .getSubject()).isEqualTo("user1");
+    }
+
+    @Test
+    void testUnknownKeyIdIsRejected() {
+        KeyRing keyRing = new KeyRing(new JwtKeyRingProperties(null, null));
+
+        Throwable thrown = catchThrowable(() -> keyRing.verifier("unknown"));
+
+        assertThat(thrown).isInstanceOf(JWTVerificationException.class);
+    }
+
+    @Test
+    void testActiveKeyMustBeAbleToSign()
+            throws GeneralSecurityException {
+        JwtKeyRingProperties.Key key = key("key-1", "ES256");
+        JwtKeyRingProperties.Key verifyOnly = new JwtKeyRingProperties.Key("key-1", "ES256", null, null,
+                key.publicKey());
+
+        Throwable thrown = catchThrowable(() -> new KeyRing(new JwtKeyRingProperties("key-1", List.of(verifyOnly))));
+
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+    }
+
+    static JwtKeyRingProperties.Key key(String id, String algorithm)
+            throws GeneralSecurityException {
+        if (algorithm.startsWith("HS")) {
+            return new JwtKeyRingProperties.Key(id, algorithm, "secret-" + id, null, null);
+        }
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.equals("ES256") ? "EC" : "Ed25519");
+        if (algorithm.equals("ES256")) {
+            generator.initialize(256);
+        }
+        KeyPair keyPair = generator.generateKeyPair();
+        Base64.Encoder encoder = Base64.getEncoder();
+        return new JwtKeyRingProperties.Key(id, algorithm, null, encoder.encodeToString(keyPair.getPrivate()
+                                                                                              .getEncoded()),
+                encoder.encodeToString(keyPair.getPublic()
+                                              .getEncoded()));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.security;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+
+
+class LoginRateLimiterTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private AtomicLong nanoTime;
+    private SimpleMeterRegistry meterRegistry;
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        nanoTime = new AtomicLong(SECOND);
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new LoginRateLimiter(new TokenBucketArray(1024, 16, 3, 6, nanoTime::get),
+                new TokenBucketArray(1024, 16, 10, 60, nanoTime::get), meterRegistry);
+    }
+
+    @Test
+    void testAllowsBurstThenRejectsUsername() {
+        assertThat(limiter.tryAcquire("user1", "10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquire("user1", "10.0.0.2")).isTrue();
+        assertThat(limiter.tryAcquire("user1", "10.0.0.3")).isTrue();
+
+        assertThat(limiter.tryAcquire("user1", "10.0.0.4")).isFalse();
+        assertThat(meterRegistry.get("security.login.throttled")
+                                .counter()
+                                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testRejectsClientAcrossUsernames() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("user" + i, "10.0.0.1")).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire("another", "10.0.0.1")).isFalse();
+        assertThat(limiter.tryAcquire("another", "10.0.0.2")).isTrue();
+    }
+
+    @Test
+    void testRefillsOverTime() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("user1", "10.0.0.1");
+        }
+        assertThat(limiter.tryAcquire("user1", "10.0.0.1")).isFalse();
+
+        nanoTime.addAndGet(10 * SECOND);
+
+        assertThat(limiter.tryAcquire("user1", "10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquire("user1", "10.0.0.1")).isFalse();
+    }
+
+    @Test
+    void testRefillNeverExceedsCapacity() {
+        limiter.tryAcquire("user1", "10.0.0.1");
+
+        nanoTime.addAndGet(3600 * SECOND);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("user1", "10.0.0.1")).isTrue();
+        }
+        assertThat(limiter.tryAcquire("user1", "10.0.0.1")).isFalse();
+    }
+
+    @Test
+    void testConcurrentAcquiresNeverExceedCapacity()
+            throws InterruptedException {
+        TokenBucketArray buckets = new TokenBucketArray(1024, 16, 100, 1, nanoTime::get);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.submit(() -> {
+                if (buckets.tryAcquire("user1")) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(granted.get()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.security;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.springframework.security.crypto.bcrypt.*;
+import org.springframework.security.crypto.password.*;
+
+
+class PasswordEncodersTests {
+
+    @Test
+    void testEncodesWithConfiguredAlgorithm() {
+        PasswordEncoder encoder = PasswordEncoders.createDelegatingPasswordEncoder(PasswordEncoders.ARGON2, 10);
+
+        String encoded = encoder.encode("testPassword");
+
+        assertThat(encoded).startsWith("{argon2}");
+        assertThat(encoder.matches("testPassword", encoded)).isTrue();
+        assertThat(encoder.upgradeEncoding(encoded)).isFalse();
+    }
+
+    @Test
+    void testMatchesAndUpgradesLegacyBCryptHash() {
+        PasswordEncoder encoder = PasswordEncoders.createDelegatingPasswordEncoder(PasswordEncoders.BCRYPT, 10);
+        String legacy = new BCryptPasswordEncoder().encode("testPassword");
+
+        assertThat(encoder.matches("testPassword", legacy)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacy)).isTrue();
+    }
+
+    @Test
+    void testUpgradesWeakerBCryptCost() {
+        PasswordEncoder weak = PasswordEncoders.createDelegatingPasswordEncoder(PasswordEncoders.BCRYPT, 4);
+        PasswordEncoder strong = PasswordEncoders.createDelegatingPasswordEncoder(PasswordEncoders.BCRYPT, 5);
+
+        String encoded = weak.encode("testPassword");
+
+        assertThat(strong.matches("testPassword", encoded)).isTrue();
+        assertThat(strong.upgradeEncoding(encoded)).isTrue();
+        assertThat(weak.upgradeEncoding(encoded)).isFalse();
+    }
+
+    @Test
+    void testUpgradesOtherAlgorithm() {
+        PasswordEncoder scrypt = PasswordEncoders.createDelegatingPasswordEncoder(PasswordEncoders.SCRYPT, 10);
+        PasswordEncoder bcrypt = PasswordEncoders.createDelegatingPasswordEncoder(PasswordEncoders.BCRYPT, 4);
+
+        String encoded = bcrypt.encode("testPassword");
+
+        assertThat(scrypt.matches("testPassword", encoded)).isTrue();
+        assertThat(scrypt.upgradeEncoding(encoded)).isTrue();
+    }
+
+    @Test
+    void testRejectsUnknownAlgorithm() {
+        Throwable thrown = catchThrowable(() -> PasswordEncoders.createDelegatingPasswordEncoder("md5", 10));
+
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.security;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.*;
+
+
+class PasswordHashingExecutorTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PasswordHashingExecutor(1, 1, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testExecuteReturnsResultAndRecordsLatency() {
+        String result = executor.execute(() -> "hash");
+
+        assertThat(result).isEqualTo("hash");
+        assertThat(meterRegistry.get("security.password.hash")
+                                .timer()
+                                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void testExecutePropagatesRuntimeException() {
+        Throwable thrown = catchThrowable(() -> executor.execute(() -> {
+            throw new IllegalArgumentException("bad hash");
+        }));
+
+        assertThat(thrown).isInstanceOf(IllegalArgumentException.class)
+                          .hasMessage("bad hash");
+    }
+
+    @Test
+    void testRejectsWhenPoolAndQueueAreFull()
+            throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            callers.submit(() -> executor.execute(() -> {
+                started.countDown();
+                await(release);
+                return "running";
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            callers.submit(() -> executor.execute(() -> "queued"));
+            while (executor.getQueueDepth() < 1) {
+                Thread.onSpinWait();
+            }
+
+            Throwable thrown = catchThrowable(() -> executor.execute(() -> "rejected"));
+
+            assertThat(thrown).isInstanceOf(HashingCapacityExceededException.class);
+            assertThat(meterRegistry.get("security.password.hash.rejected")
+                                    .counter()
+                                    .count()).isEqualTo(1.0);
+            assertThat(meterRegistry.get("security.password.hash.queue.depth")
+                                    .gauge()
+                                    .value()).isEqualTo(1.0);
+        } finally {
+            release.countDown();
+            callers.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+}
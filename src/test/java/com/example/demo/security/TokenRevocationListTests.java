@@ -0,0 +1,104 @@
+package com.example.demo.security;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.*;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+
+class TokenRevocationListTests {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private Instant now;
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        now = NOW;
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+        revocationList = new TokenRevocationList(1000, 0.01, new SimpleMeterRegistry(), clock);
+    }
+
+    @Test
+    void testRevokedTokenIsReported() {
+        assertThat(revocationList.isRevoked("jti-1")).isFalse();
+
+        assertThat(revocationList.revoke("jti-1", NOW.plusSeconds(60))).isTrue();
+
+        assertThat(revocationList.isRevoked("jti-1")).isTrue();
+        assertThat(revocationList.isRevoked("jti-2")).isFalse();
+        assertThat(revocationList.isRevoked(null)).isFalse();
+    }
+
+    @Test
+    void testSecondRevocationOfSameTokenReturnsFalse() {
+        revocationList.revoke("jti-1", NOW.plusSeconds(60));
+
+        assertThat(revocationList.revoke("jti-1", NOW.plusSeconds(60))).isFalse();
+    }
+
+    @Test
+    void testReinstatedTokenCanBeRevokedAgain() {
+        revocationList.revoke("jti-1", NOW.plusSeconds(60));
+
+        revocationList.reinstate("jti-1");
+
+        assertThat(revocationList.isRevoked("jti-1")).isFalse();
+        assertThat(revocationList.revoke("jti-1", NOW.plusSeconds(60))).isTrue();
+    }
+
+    @Test
+    void testPurgeDropsExpiredEntriesOnly() {
+        revocationList.revoke("jti-1", NOW.plusSeconds(10));
+        revocationList.revoke("jti-2", NOW.plusSeconds(60));
+
+        now = NOW.plusSeconds(30);
+        revocationList.purgeExpired();
+
+        assertThat(revocationList.size()).isEqualTo(1);
+        assertThat(revocationList.isRevoked("jti-1")).isFalse();
+        assertThat(revocationList.isRevoked("jti-2")).isTrue();
+    }
+
+    @Test
+    void testBloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        List<String> inserted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String tokenId = UUID.randomUUID()
+                                 .toString();
+            inserted.add(tokenId);
+            bloomFilter.put(tokenId);
+        }
+
+        assertThat(inserted).allMatch(bloomFilter::mightContain);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bloomFilter.mightContain(UUID.randomUUID()
+                                             .toString())) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.security;
+
+
+import static org.assertj.core.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.*;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.springframework.security.core.userdetails.*;
+
+
+class UserDetailsCacheTests {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsCache cache;
+    private Instant now;
+
+    @BeforeEach
+    void setUp() {
+        now = NOW;
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+        cache = new UserDetailsCache(2, Duration.ofMinutes(5), meterRegistry, clock);
+    }
+
+    @Test
+    void testMissThenHit() {
+        assertThat(cache.get("user1")).isNull();
+
+        cache.put(user("user1"));
+
+        UserDetails cached = cache.get("user1");
+        assertThat(cached).isNotNull();
+        assertThat(cached.getUsername()).isEqualTo("user1");
+        assertThat(cached.getPassword()).isEqualTo("hash");
+        assertThat(cache.getHitRatio()).isEqualTo(0.5);
+        assertThat(meterRegistry.get("security.user.cache.hit.ratio")
+                                .gauge()
+                                .value()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testReturnedCopySurvivesCredentialErasure() {
+        cache.put(user("user1"));
+
+        ((User) cache.get("user1")).eraseCredentials();
+
+        assertThat(cache.get("user1")
+                        .getPassword()).isEqualTo("hash");
+    }
+
+    @Test
+    void testEntryExpiresAfterTtl() {
+        cache.put(user("user1"));
+
+        now = NOW.plus(Duration.ofMinutes(5));
+
+        assertThat(cache.get("user1")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        cache.put(user("user1"));
+        cache.put(user("user2"));
+        cache.put(user("user3"));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("user3")).isNull();
+    }
+
+    @Test
+    void testInvalidate() {
+        cache.put(user("user1"));
+
+        cache.invalidate("user1");
+
+        assertThat(cache.get("user1")).isNull();
+    }
+
+    private static UserDetails user(String username) {
+        return new User(username, "hash", Collections.emptyList());
+    }
+}
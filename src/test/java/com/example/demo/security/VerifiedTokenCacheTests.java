@@ -0,0 +1,129 @@
+package com.example.demo.security;
+
+
+import static com.auth0.jwt.algorithms.Algorithm.*;
+import static org.assertj.core.api.Assertions.*;
+
+import com.auth0.jwt.*;
+import com.auth0.jwt.interfaces.*;
+import io.micrometer.core.instrument.simple.*;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+
+class VerifiedTokenCacheTests {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(2, meterRegistry, clock);
+    }
+
+    @Test
+    void testMissThenHit() {
+        String token = sign("user1", NOW.plusSeconds(60));
+
+        assertThat(cache.get(token)).isNull();
+
+        cache.put(token, JWT.decode(token));
+
+        assertThat(cache.get(token)).isNotNull()
+                                    .extracting(DecodedJWT::getSubject)
+                                    .isEqualTo("user1");
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.token.cache.hits")
+                                .functionCounter()
+                                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testEntryExpiresWithToken() {
+        String token = sign("user1", NOW.plusSeconds(60));
+        cache.put(token, JWT.decode(token));
+
+        clock.now = NOW.plusSeconds(61);
+
+        assertThat(cache.get(token)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        String token1 = sign("user1", NOW.plusSeconds(60));
+        String token2 = sign("user2", NOW.plusSeconds(60));
+        String token3 = sign("user3", NOW.plusSeconds(60));
+
+        cache.put(token1, JWT.decode(token1));
+        cache.put(token2, JWT.decode(token2));
+        cache.put(token3, JWT.decode(token3));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(token3)).isNull();
+    }
+
+    @Test
+    void testExpiredEntriesAreEvictedWhenFull() {
+        String token1 = sign("user1", NOW.plusSeconds(10));
+        String token2 = sign("user2", NOW.plusSeconds(10));
+        String token3 = sign("user3", NOW.plusSeconds(60));
+        cache.put(token1, JWT.decode(token1));
+        cache.put(token2, JWT.decode(token2));
+
+        clock.now = NOW.plusSeconds(20);
+        cache.put(token3, JWT.decode(token3));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(token3)).isNotNull();
+    }
+
+    @Test
+    void testInvalidate() {
+        String token = sign("user1", NOW.plusSeconds(60));
+        cache.put(token, JWT.decode(token));
+
+        cache.invalidate(token);
+
+        assertThat(cache.get(token)).isNull();
+    }
+
+    private static String sign(String subject, Instant expiresAt) {
+        return JWT.create()
+                  .withSubject(subject)
+                  .withExpiresAt(Date.from(expiresAt))
+                  .sign(HMAC512(SecurityConstants.SECRET.getBytes()));
+    }
+
+    private static final class MutableClock
+            extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}